@@ -0,0 +1,29 @@
+package core;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks in bench/ with the GC profiler, so every result has its allocation
+ * rate (gc.alloc.rate.norm, bytes per operation) next to its time. The results are also
+ * written to jmh-result.json.
+ *
+ * The benchmarks need annotation processing turned on for this module (IntelliJ: Settings >
+ * Build > Compiler > Annotation Processors) so JMH can generate its harness when they are
+ * compiled. Pass a regular expression to run only the benchmarks whose names match it, for
+ * example "Replay" or "TileSetBenchmark.surround".
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*Benchmark.*";
+        new Runner(new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result.json")
+                .build()).run();
+    }
+}
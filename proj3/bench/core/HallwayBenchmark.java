@@ -0,0 +1,52 @@
+package core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.Point;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hallway.generateHallway between two rooms side by side (a straight hallway) and two rooms
+ * offset on both axes (a hallway with a turn), alone and followed by a walk over the
+ * hallway's tiles the way World.carveFloors walks them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HallwayBenchmark {
+    private final Room left = new Room(8, 8, new Point(10, 10));
+    private final Room right = new Room(8, 8, new Point(40, 12));
+    private final Room above = new Room(8, 8, new Point(60, 50));
+    private final Random rnd = new Random(42);
+
+    @Benchmark
+    public Hallway straight() {
+        return Hallway.generateHallway(left, right, rnd);
+    }
+
+    @Benchmark
+    public Hallway turning() {
+        return Hallway.generateHallway(left, above, rnd);
+    }
+
+    @Benchmark
+    public void straightWalk(Blackhole bh) {
+        for (Point p : Hallway.generateHallway(left, right, rnd)) {
+            bh.consume(p);
+        }
+    }
+
+    @Benchmark
+    public void turningWalk(Blackhole bh) {
+        for (Point p : Hallway.generateHallway(left, above, rnd)) {
+            bh.consume(p);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PathFinder.findPath on a 1024x1024 world from the avatar to a random open cell, either one
+ * within a 70x30 screen of the avatar, like a click would pick, or one
+ * anywhere on the map.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PathFinderBenchmark {
+    private static final int SIZE = 1024;
+    private static final int SCREEN_WIDTH = 70;
+    private static final int SCREEN_HEIGHT = 30;
+    private World world;
+    private PathFinder finder;
+    private final Random rnd = new Random(42);
+    private int nearX;
+    private int nearY;
+    private int farX;
+    private int farY;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        world = new World(42, SIZE, SIZE);
+        finder = new PathFinder(world.getWalkable(), world.getOccupied());
+    }
+
+    @Setup(Level.Invocation)
+    public void pickTargets() {
+        do {
+            nearX = world.getAvatarX() + rnd.nextInt(-SCREEN_WIDTH / 2, SCREEN_WIDTH / 2);
+            nearY = world.getAvatarY() + rnd.nextInt(-SCREEN_HEIGHT / 2, SCREEN_HEIGHT / 2);
+        } while (!world.isOpen(nearX, nearY));
+        do {
+            farX = rnd.nextInt(SIZE);
+            farY = rnd.nextInt(SIZE);
+        } while (!world.isOpen(farX, farY));
+    }
+
+    @Benchmark
+    public int onScreen() {
+        return finder.findPath(world.getAvatarX(), world.getAvatarY(), nearX, nearY);
+    }
+
+    @Benchmark
+    public int acrossMap() {
+        return finder.findPath(world.getAvatarX(), world.getAvatarY(), farX, farY);
+    }
+}
@@ -0,0 +1,45 @@
+package core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * World.loadWorld on a 70x30 world with long move strings, the way AutograderBuddy replays
+ * inputs. The base world comes from the shared WorldCache after the first invocation, so this
+ * is the cost of replaying the moves, and of the copy-on-write copy they trigger, rather than
+ * of generation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReplayBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int moves;
+
+    private String input;
+
+    @Setup(Level.Trial)
+    public void recordMoves() {
+        Random rnd = new Random(42);
+        StringBuilder sb = new StringBuilder("n42s");
+        for (int i = 0; i < moves; i++) {
+            sb.append("wasd".charAt(rnd.nextInt(4)));
+        }
+        input = sb.toString();
+    }
+
+    @Benchmark
+    public World loadWorld() {
+        return World.loadWorld(input, 30, 70, WorldCache.shared());
+    }
+}
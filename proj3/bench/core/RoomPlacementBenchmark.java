@@ -0,0 +1,68 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Times room placement (World.generateRooms) against world area, next to the old approach of
+ * checking every candidate against every placed room. Run main and read the table it prints;
+ * each row is the median of several seeds after a warmup.
+ */
+public class RoomPlacementBenchmark {
+    private static final int[] SIDES = {64, 128, 256, 512, 1024, 2048};
+    private static final int SEEDS = 5;
+
+    public static void main(String[] args) {
+        // warm up both paths so the JIT has compiled them before anything is timed
+        for (int i = 0; i < 20; i++) {
+            World.generateRooms(256, 256, 0.4, new Random(i));
+            generateRoomsLinear(256, 256, 0.4, new Random(i));
+        }
+
+        System.out.printf("%-11s %10s %8s %12s %12s%n", "size", "area", "rooms", "indexed ms",
+                "linear ms");
+        for (int side : SIDES) {
+            long[] indexed = new long[SEEDS];
+            long[] linear = new long[SEEDS];
+            int roomCount = 0;
+            for (int seed = 0; seed < SEEDS; seed++) {
+                long start = System.nanoTime();
+                roomCount = World.generateRooms(side, side, 0.4, new Random(seed)).size();
+                indexed[seed] = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                generateRoomsLinear(side, side, 0.4, new Random(seed));
+                linear[seed] = System.nanoTime() - start;
+            }
+            System.out.printf("%-11s %10d %8d %12.2f %12.2f%n", side + "x" + side, side * side,
+                    roomCount, median(indexed) / 1e6, median(linear) / 1e6);
+        }
+    }
+
+    /** Room placement as it was before RoomIndex: every candidate against every room. */
+    private static List<Room> generateRoomsLinear(int width, int height, double threshold,
+                                                  Random rnd) {
+        List<Room> placed = new ArrayList<>();
+        double filled = 0;
+
+        roomGen:
+        while (filled < threshold * width * height) {
+            Room currRoom = Room.generateRoom(5, 10, width, height, rnd);
+            for (Room r : placed) {
+                if (r.collidesWith(currRoom)) {
+                    continue roomGen;
+                }
+            }
+            placed.add(currRoom);
+            filled += currRoom.height * currRoom.width;
+        }
+        return placed;
+    }
+
+    private static long median(long[] times) {
+        long[] sorted = times.clone();
+        java.util.Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
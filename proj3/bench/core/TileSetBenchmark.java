@@ -0,0 +1,72 @@
+package core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import tileengine.TileGrid;
+import tileengine.Tileset;
+import utils.BitGrid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning a fixed set of rooms and hallways into tiles: the whole of World.generateTileSet,
+ * and World.surroundWithWalls alone. Wall placement doesn't change a grid that is already
+ * walled, so surroundWithWalls runs over the same grid every invocation; generateTileSet needs
+ * a blank grid, so clearing the grid is part of what it measures. It also appends any repair
+ * hallways to the list it is given, so every invocation gets a fresh copy of the hallways.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TileSetBenchmark {
+    @Param({"70", "256", "1024"})
+    public int side;
+
+    private List<Room> rooms;
+    private List<Hallway> hallways;
+    private List<Hallway> hallwaysCopy;
+    private TileGrid blank;
+    private TileGrid carved;
+    private BitGrid floors;
+
+    @Setup(Level.Trial)
+    public void generateLayout() {
+        Random rnd = new Random(42);
+        rooms = World.generateRooms(side, side, 0.4, rnd);
+        hallways = World.generateHallways(rooms, rnd);
+        blank = new TileGrid(side, side, Tileset.NOTHING);
+        carved = new TileGrid(side, side, Tileset.NOTHING);
+        floors = new BitGrid(side, side);
+        World.carveFloors(carved, floors, rooms, hallways);
+        World.surroundWithWalls(carved, floors, 0, carved.height());
+    }
+
+    @Setup(Level.Invocation)
+    public void copyHallways() {
+        hallwaysCopy = new ArrayList<>(hallways);
+    }
+
+    @Benchmark
+    public TileGrid generateTileSet() {
+        blank.fill(Tileset.NOTHING);
+        World.generateTileSet(blank, new BitGrid(side, side), rooms, hallwaysCopy,
+                new Random(42));
+        return blank;
+    }
+
+    @Benchmark
+    public TileGrid surroundWithWalls() {
+        World.surroundWithWalls(carved, floors, 0, carved.height());
+        return carved;
+    }
+}
@@ -0,0 +1,41 @@
+package core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generating a whole world with new World(seed, height, width). The seed changes every
+ * invocation so the result averages over many layouts rather than timing one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WorldBenchmark {
+    @Param({"70x30", "256x256", "1024x1024"})
+    public String size;
+
+    private int width;
+    private int height;
+    private long seed;
+
+    @Setup(Level.Trial)
+    public void parseSize() {
+        String[] parts = size.split("x");
+        width = Integer.parseInt(parts[0]);
+        height = Integer.parseInt(parts[1]);
+    }
+
+    @Benchmark
+    public World newWorld() {
+        return new World(seed++, height, width);
+    }
+}
@@ -0,0 +1,45 @@
+package tileengine;
+
+import core.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TERenderer.drawTiles for a 70x30 world. The renderer double buffers, so drawTiles only
+ * draws into StdDraw's offscreen image; nothing is shown. StdDraw still opens its window
+ * when it is first used, so this needs a display (a virtual one such as Xvfb will do).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RenderBenchmark {
+    private final TERenderer ter = new TERenderer();
+    private TETile[][] tiles;
+    private TileGrid grid;
+
+    @Setup(Level.Trial)
+    public void initialize() {
+        World world = new World(42, 30, 70);
+        tiles = world.getTileSet();
+        grid = world.getTiles();
+        ter.initialize(70, 30);
+    }
+
+    @Benchmark
+    public void drawTiles() {
+        ter.drawTiles(tiles);
+    }
+
+    @Benchmark
+    public void drawTileGrid() {
+        ter.drawTiles(grid);
+    }
+}
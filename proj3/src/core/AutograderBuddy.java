@@ -2,7 +2,6 @@ package core;
 
 import tileengine.TETile;
 import tileengine.Tileset;
-import utils.FileUtils;
 
 public class AutograderBuddy {
 
@@ -19,35 +18,47 @@ public class AutograderBuddy {
      * @return the 2D TETile[][] representing the state of the world
      */
     public static TETile[][] getWorldFromInput(String input) {
+        return runInput(input, SaveStore.workingDirectory()).getTileSet();
+    }
+
+    /**
+     * Like getWorldFromInput, but loads and saves with the given store instead of the working
+     * directory, and returns the session itself. Inputs that use different stores can run at
+     * the same time.
+     *
+     * ":q" saves in SaveFile's binary format, not as the input text: the save records the
+     * moves the avatar actually made, so keys that bumped into a wall, and the ":q" itself,
+     * are left out. Loading it gives the same world as replaying the input text would, and
+     * text saves from before are still loaded.
+     *
+     * @param input the input string to feed to your program
+     * @param store where "l" loads from and ":q" saves to
+     * @return the session after the input
+     */
+    public static World runInput(String input, SaveStore store) {
         input = input.toLowerCase();
         int width = 70;
         int height = 30;
         World world;
 
-        StringBuilder saveBuilder = new StringBuilder();
         if (input.startsWith("l")) {
-            String save = FileUtils.readFile("save.txt");
-            saveBuilder.append(save);
-
-            world = World.loadWorld(save, height, width);
+            world = SaveFile.load(store, height, width, WorldCache.shared());
             for (int i = 1; i < input.length(); i++) {
                 char key = input.charAt(i); // assumes lowercase
                 if ("wasd".indexOf(key) != -1) {
-                    saveBuilder.append(key);
                     world.moveAvatar(key);
                 }
             }
 
         } else {
-            world = World.loadWorld(input, height, width);
-            saveBuilder.append(input);
+            world = World.loadWorld(input, height, width, WorldCache.shared());
         }
 
         if (input.endsWith(":q")) {
-            FileUtils.writeFile("save.txt", saveBuilder.toString());
+            SaveFile.save(store, world);
         }
 
-        return world.getTileSet();
+        return world;
 
     }
 
@@ -1,19 +1,38 @@
 package core;
-import tileengine.TETile;
+import tileengine.TileGrid;
 import tileengine.Tileset;
+import utils.BitGrid;
 
 
 public class Avatar {
-    TETile[][] world;
+    TileGrid world;
+    // whether a cell can be moved onto is decided by these layers, not by the tiles
+    BitGrid walkable;
+    BitGrid occupied;
     int x;
     int y;
 
-    public Avatar(TETile[][] world, int startX, int startY) {
+    public Avatar(TileGrid world, BitGrid walkable, BitGrid occupied, int startX, int startY) {
         // instance vars
         this.world = world;
+        this.walkable = walkable;
+        this.occupied = occupied;
         this.x = startX;
         this.y = startY;
-        world[x][y] = Tileset.AVATAR; //should the initial position be randomly selected?
+        world.set(x, y, Tileset.AVATAR); //should the initial position be randomly selected?
+        occupied.set(x, y);
+    }
+
+    /**
+     * Avatar at the same position as another one, on copies of the other avatar's grid and
+     * occupied layer that already have it there. Nothing is written to either.
+     */
+    Avatar(TileGrid world, BitGrid occupied, Avatar other) {
+        this.world = world;
+        this.walkable = other.walkable;
+        this.occupied = occupied;
+        this.x = other.x;
+        this.y = other.y;
     }
 
     public boolean move(char key) {
@@ -26,15 +45,30 @@ public class Avatar {
         };
     }
 
+    /**
+     * Moves the avatar straight to (newX, newY) without checking the cell there. Used to restore
+     * a saved position.
+     */
+    public void placeAt(int newX, int newY) {
+        moveTo(newX, newY);
+    }
+
     public boolean moveIfPossible(int newX, int newY) {
-        // checks that new location is valid (not a wall) and in bounds
-        if (world[newX][newY] == Tileset.FLOOR) {
-            world[x][y] = Tileset.FLOOR; //clears old position
-            x = newX;
-            y = newY;
-            world[x][y] = Tileset.AVATAR; // makes new position an avatar til
+        // checks that new location is in bounds, walkable and not taken by something else
+        if (walkable.inBounds(newX, newY) && walkable.get(newX, newY)
+                && !occupied.get(newX, newY)) {
+            moveTo(newX, newY);
             return true;
         }
         return false;
     }
+
+    private void moveTo(int newX, int newY) {
+        world.set(x, y, Tileset.FLOOR); //clears old position
+        occupied.clear(x, y);
+        x = newX;
+        y = newY;
+        world.set(x, y, Tileset.AVATAR); // makes new position an avatar tile
+        occupied.set(x, y);
+    }
 }
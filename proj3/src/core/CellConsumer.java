@@ -0,0 +1,10 @@
+package core;
+
+/**
+ * Receives the coordinates of one cell of a room or hallway. Unlike iterating over a room or
+ * hallway as Points, nothing is allocated per cell.
+ */
+@FunctionalInterface
+public interface CellConsumer {
+    void accept(int x, int y);
+}
@@ -0,0 +1,13 @@
+package core;
+
+/**
+ * The state of a game session after a given number of recorded moves, so a session can be
+ * restored from here instead of replaying every move from the start.
+ *
+ * @param moveIndex how many recorded moves (including sight toggles) led to this state
+ * @param avatarX the x coordinate of the avatar
+ * @param avatarY the y coordinate of the avatar
+ * @param sightLimit whether the sight limit was on
+ */
+record Checkpoint(int moveIndex, int avatarX, int avatarY, boolean sightLimit) {
+}
@@ -0,0 +1,253 @@
+package core;
+
+import tileengine.TETile;
+import tileengine.TileGrid;
+import tileengine.Tileset;
+import utils.BitGrid;
+import utils.RandomUtils;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * An unbounded world made of square chunks that are generated the first time something reads
+ * a tile inside them. Each chunk is an ordinary room-and-hallway world generated from a seed
+ * derived from (world seed, chunk x, chunk y), so a chunk always comes out the same no matter
+ * when or in what order it is generated.
+ *
+ * Chunks are linked through ports: every edge shared by two chunks gets one floor tile, at a
+ * position derived from the seed and the edge, and both chunks run a hallway from that port to
+ * their nearest room. Only the most recently used chunks are kept in memory; the least recently
+ * used one is dropped once there are more than maxChunks, and is simply generated again if the
+ * avatar comes back.
+ *
+ * This is a library for unbounded worlds: Main still plays bounded Worlds, which have saves,
+ * undo and sight that chunks don't. A renderer can draw a ChunkedWorld by copying the window
+ * on screen into a window-sized TileGrid with copyRegion.
+ */
+public class ChunkedWorld {
+    public static final int CHUNK_SIZE = 64;
+
+    private final long seed;
+    private final int maxChunks;
+    private final Map<Long, TileGrid> chunks;
+    private final short[] run = new short[CHUNK_SIZE];
+    private int avatarX;
+    private int avatarY;
+    private int generatedCount = 0;
+
+    /**
+     * Create a new chunked world
+     * @param seed the seed every chunk is derived from
+     * @param maxChunks how many chunks to keep in memory at most; at least chunksCovering the
+     *                  window that copyRegion is used with
+     */
+    public ChunkedWorld(long seed, int maxChunks) {
+        if (maxChunks < 1) {
+            throw new IllegalArgumentException("Must keep at least one chunk");
+        }
+        this.seed = seed;
+        this.maxChunks = maxChunks;
+        this.chunks = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, TileGrid> eldest) {
+                return size() > maxChunks;
+            }
+        };
+
+        // start the avatar on the first floor tile of chunk (0, 0)
+        TileGrid origin = chunk(0, 0);
+        findStart:
+        for (int y = 0; y < CHUNK_SIZE; y++) {
+            for (int x = 0; x < CHUNK_SIZE; x++) {
+                if (origin.getId(x, y) == Tileset.FLOOR.id()) {
+                    avatarX = x;
+                    avatarY = y;
+                    break findStart;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the tile at a world position, generating its chunk if it is not in memory
+     * @param x the x coordinate, any int
+     * @param y the y coordinate, any int
+     * @return the tile at (x, y), or AVATAR if the avatar is standing there
+     */
+    public TETile getTile(int x, int y) {
+        if (x == avatarX && y == avatarY) {
+            return Tileset.AVATAR;
+        }
+        return terrain(x, y);
+    }
+
+    /**
+     * @param width width of a window in tiles
+     * @param height height of a window in tiles
+     * @return the most chunks a window of that size can overlap, wherever it is
+     */
+    public static int chunksCovering(int width, int height) {
+        int columns = Math.ceilDiv(width - 1, CHUNK_SIZE) + 1;
+        int rows = Math.ceilDiv(height - 1, CHUNK_SIZE) + 1;
+        return columns * rows;
+    }
+
+    /**
+     * Copy the window of the world with bottom left corner (x0, y0) into a grid, for rendering.
+     * Each chunk the window overlaps is looked up once and copied a row at a time.
+     * @param target the grid to fill; its size is the size of the window
+     * @param x0 the world x coordinate of the left column of the window
+     * @param y0 the world y coordinate of the bottom row of the window
+     * @throws IllegalArgumentException if the window can overlap more than maxChunks chunks,
+     * which would evict chunks of the window while it is being copied
+     */
+    public void copyRegion(TileGrid target, int x0, int y0) {
+        int w = target.width();
+        int h = target.height();
+        if (chunksCovering(w, h) > maxChunks) {
+            throw new IllegalArgumentException("A " + w + "x" + h + " window can overlap "
+                    + chunksCovering(w, h) + " chunks, but only " + maxChunks + " are kept");
+        }
+        int lastCx = Math.floorDiv(x0 + w - 1, CHUNK_SIZE);
+        int lastCy = Math.floorDiv(y0 + h - 1, CHUNK_SIZE);
+        for (int cy = Math.floorDiv(y0, CHUNK_SIZE); cy <= lastCy; cy++) {
+            int fromY = Math.max(y0, cy * CHUNK_SIZE);
+            int toY = Math.min(y0 + h, (cy + 1) * CHUNK_SIZE);
+            for (int cx = Math.floorDiv(x0, CHUNK_SIZE); cx <= lastCx; cx++) {
+                TileGrid c = chunk(cx, cy);
+                int fromX = Math.max(x0, cx * CHUNK_SIZE);
+                int length = Math.min(x0 + w, (cx + 1) * CHUNK_SIZE) - fromX;
+                for (int y = fromY; y < toY; y++) {
+                    c.getIds(fromX - cx * CHUNK_SIZE, y - cy * CHUNK_SIZE, length, run, 0);
+                    target.setIds(fromX - x0, y - y0, length, run, 0);
+                }
+            }
+        }
+        if (avatarX >= x0 && avatarX - x0 < w && avatarY >= y0 && avatarY - y0 < h) {
+            target.set(avatarX - x0, avatarY - y0, Tileset.AVATAR);
+        }
+    }
+
+    /**
+     * Move the avatar one tile if the tile in that direction is floor
+     * @param key one of w, a, s, d
+     * @return true if the avatar moved, false otherwise
+     */
+    public boolean moveAvatar(char key) {
+        int newX = avatarX;
+        int newY = avatarY;
+        switch (key) {
+            case 'w' -> newY++;
+            case 's' -> newY--;
+            case 'a' -> newX--;
+            case 'd' -> newX++;
+            default -> {
+                return false;
+            }
+        }
+        if (terrain(newX, newY) != Tileset.FLOOR) {
+            return false;
+        }
+        avatarX = newX;
+        avatarY = newY;
+        return true;
+    }
+
+    public int getAvatarX() {
+        return avatarX;
+    }
+
+    public int getAvatarY() {
+        return avatarY;
+    }
+
+    /**
+     * @return how many chunks are currently held in memory
+     */
+    public int loadedChunks() {
+        return chunks.size();
+    }
+
+    /**
+     * @return how many times a chunk has been generated, counting regenerations after eviction
+     */
+    public int generatedChunks() {
+        return generatedCount;
+    }
+
+    private TETile terrain(int x, int y) {
+        TileGrid c = chunk(Math.floorDiv(x, CHUNK_SIZE), Math.floorDiv(y, CHUNK_SIZE));
+        return c.get(Math.floorMod(x, CHUNK_SIZE), Math.floorMod(y, CHUNK_SIZE));
+    }
+
+    private TileGrid chunk(int cx, int cy) {
+        long key = ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+        TileGrid c = chunks.get(key);
+        if (c == null) {
+            c = generateChunk(cx, cy);
+            chunks.put(key, c);
+        }
+        return c;
+    }
+
+    private TileGrid generateChunk(int cx, int cy) {
+        generatedCount++;
+        Random rnd = new Random(RandomUtils.deriveSeed(seed, cx, cy));
+
+        // keep rooms off the outer ring of the chunk so the ports are the only floor on its edge
+        List<Room> rooms = World.generateRooms(CHUNK_SIZE - 2, CHUNK_SIZE - 2, 0.4, rnd);
+        for (Room r : rooms) {
+            r.origin.translate(1, 1);
+        }
+        List<Hallway> hallways = new ArrayList<>(World.generateHallways(rooms, rnd));
+
+        int last = CHUNK_SIZE - 1;
+        hallways.add(portHallway(new Point(0, port(cx - 1, cy, true)), rooms, true));
+        hallways.add(portHallway(new Point(last, port(cx, cy, true)), rooms, true));
+        hallways.add(portHallway(new Point(port(cx, cy - 1, false), 0), rooms, false));
+        hallways.add(portHallway(new Point(port(cx, cy, false), last), rooms, false));
+
+        TileGrid grid = new TileGrid(CHUNK_SIZE, CHUNK_SIZE, Tileset.NOTHING);
+        World.generateTileSet(grid, new BitGrid(CHUNK_SIZE, CHUNK_SIZE), rooms, hallways, rnd);
+        return grid;
+    }
+
+    /**
+     * Position along the edge of a port. The port on the right edge of chunk (cx, cy) is the
+     * same tile row as the port on the left edge of chunk (cx + 1, cy), and likewise for the top
+     * edge and the bottom edge of the chunk above.
+     */
+    private int port(int cx, int cy, boolean rightEdge) {
+        long edgeSeed = RandomUtils.deriveSeed(seed ^ (rightEdge ? 1 : 2), cx, cy);
+        return 2 + (int) Math.floorMod(edgeSeed, (long) CHUNK_SIZE - 4);
+    }
+
+    /**
+     * Hallway from a port on the chunk edge to the centre of the nearest room, leaving the edge
+     * straight into the chunk before turning.
+     */
+    private static Hallway portHallway(Point port, List<Room> rooms, boolean horizontalFirst) {
+        Room nearest = null;
+        int minDistance = Integer.MAX_VALUE;
+        for (Room r : rooms) {
+            int distance = Math.abs(r.origin.x + r.width / 2 - port.x)
+                    + Math.abs(r.origin.y + r.height / 2 - port.y);
+            if (distance < minDistance) {
+                minDistance = distance;
+                nearest = r;
+            }
+        }
+        Point center = new Point(nearest.origin.x + nearest.width / 2,
+                nearest.origin.y + nearest.height / 2);
+        Point turn = horizontalFirst ? new Point(center.x, port.y) : new Point(port.x, center.y);
+        if (turn.equals(center)) {
+            return new Hallway(port, center);
+        }
+        return new Hallway(port, center, turn);
+    }
+}
@@ -0,0 +1,179 @@
+package core;
+
+import utils.BitGrid;
+
+/**
+ * What can be seen from a point, found by recursive shadowcasting, plus every cell that has been
+ * seen so far.
+ *
+ * The area around the origin is split into eight octants, and each octant is scanned row by row
+ * outwards from the origin. A scan covers a range of slopes; when it meets an opaque cell it
+ * starts a narrower scan of the next row for the part before the cell and carries on past it,
+ * so the cells in a wall's shadow are never looked at. Opaque cells are lit themselves, which
+ * is what makes walls visible. Only cells within the radius are touched, so computing the view
+ * costs about radius^2 steps however large the world is.
+ *
+ * visible() and explored() are bit-packed layers the size of the world. compute() clears only
+ * the previous view's bounding box before casting the new one, and adds every lit cell to the
+ * explored layer.
+ */
+public class FieldOfView {
+    // xx, xy, yx, yy for each octant: the offset of the cell at column dx, row dy of an octant
+    // is (dx * xx + dy * xy, dx * yx + dy * yy)
+    private static final int[][] OCTANTS = {
+        {1, 0, 0, 1}, {0, 1, 1, 0}, {0, -1, 1, 0}, {-1, 0, 0, 1},
+        {-1, 0, 0, -1}, {0, -1, -1, 0}, {0, 1, -1, 0}, {1, 0, 0, -1},
+    };
+
+    private final BitGrid transparent;
+    private final BitGrid visible;
+    private final BitGrid explored;
+    private int radius;
+    // the origin and radius of the view in visible, or a negative radius if there is none
+    private int litX = 0;
+    private int litY = 0;
+    private int litRadius = -1;
+
+    /**
+     * @param transparent a bit set for every cell that can be seen through; the cells that
+     *                    aren't are seen but hide what is behind them
+     * @param radius how far from the origin cells can be seen, measured as a straight line
+     */
+    public FieldOfView(BitGrid transparent, int radius) {
+        this.transparent = transparent;
+        this.visible = new BitGrid(transparent.width(), transparent.height());
+        this.explored = new BitGrid(transparent.width(), transparent.height());
+        if (radius < 0) {
+            throw new IllegalArgumentException("Sight radius must not be negative");
+        }
+        this.radius = radius;
+    }
+
+    /**
+     * Changes the radius used by the next compute
+     *
+     * @param radius how far from the origin cells can be seen; at least 0
+     */
+    public void setRadius(int radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("Sight radius must not be negative");
+        }
+        this.radius = radius;
+    }
+
+    public int radius() {
+        return radius;
+    }
+
+    /**
+     * Replace the visible cells with the ones seen from (x, y), and add them to the explored
+     * cells
+     *
+     * @param x the x coordinate to look from
+     * @param y the y coordinate to look from
+     */
+    public void compute(int x, int y) {
+        clearVisible();
+        light(x, y);
+        for (int[] o : OCTANTS) {
+            castLight(x, y, 1, 1.0, 0.0, o[0], o[1], o[2], o[3]);
+        }
+        litX = x;
+        litY = y;
+        litRadius = radius;
+    }
+
+    /**
+     * Forget the visible cells, keeping the explored ones
+     */
+    public void clearVisible() {
+        if (litRadius < 0) {
+            return;
+        }
+        int x0 = Math.max(0, litX - litRadius);
+        int y0 = Math.max(0, litY - litRadius);
+        int x1 = Math.min(visible.width() - 1, litX + litRadius);
+        int y1 = Math.min(visible.height() - 1, litY + litRadius);
+        visible.clearRect(x0, y0, x1 - x0 + 1, y1 - y0 + 1);
+        litRadius = -1;
+    }
+
+    /**
+     * @return the cells seen from the last origin given to compute. The layer is live and must
+     * not be modified.
+     */
+    public BitGrid visible() {
+        return visible;
+    }
+
+    /**
+     * @return every cell seen by any compute so far. The layer is live and must not be modified.
+     */
+    public BitGrid explored() {
+        return explored;
+    }
+
+    public boolean isVisible(int x, int y) {
+        return visible.get(x, y);
+    }
+
+    public boolean isExplored(int x, int y) {
+        return explored.get(x, y);
+    }
+
+    /**
+     * Scan the rows of one octant from row outwards, between the slopes start and end, where
+     * a slope is the column over the row of the edge of a cell as seen from the origin
+     */
+    private void castLight(int originX, int originY, int row, double start, double end,
+                           int xx, int xy, int yx, int yy) {
+        if (start < end) {
+            return;
+        }
+        int radiusSquared = radius * radius;
+        double newStart = 0;
+        for (int j = row; j <= radius; j++) {
+            // rows run away from the origin along -dy, cells along the row from -j to 0
+            int dy = -j;
+            boolean blocked = false;
+            for (int dx = -j; dx <= 0; dx++) {
+                double leftSlope = (dx - 0.5) / (dy + 0.5);
+                double rightSlope = (dx + 0.5) / (dy - 0.5);
+                if (start < rightSlope) {
+                    continue;
+                } else if (end > leftSlope) {
+                    break;
+                }
+
+                int x = originX + dx * xx + dy * xy;
+                int y = originY + dx * yx + dy * yy;
+                boolean inBounds = transparent.inBounds(x, y);
+                if (inBounds && dx * dx + dy * dy <= radiusSquared) {
+                    light(x, y);
+                }
+                boolean opaque = !inBounds || !transparent.get(x, y);
+                if (blocked) {
+                    if (opaque) {
+                        newStart = rightSlope;
+                    } else {
+                        blocked = false;
+                        start = newStart;
+                    }
+                } else if (opaque && j < radius) {
+                    // the cells before this one are seen past it on the next row
+                    blocked = true;
+                    castLight(originX, originY, j + 1, start, leftSlope, xx, xy, yx, yy);
+                    newStart = rightSlope;
+                }
+            }
+            if (blocked) {
+                return;
+            }
+        }
+    }
+
+    private void light(int x, int y) {
+        visible.set(x, y);
+        explored.set(x, y);
+    }
+}
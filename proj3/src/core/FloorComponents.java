@@ -0,0 +1,244 @@
+package core;
+
+import tileengine.TileGrid;
+import tileengine.Tileset;
+import utils.BitGrid;
+import utils.UnionFind;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * The connected components of a floor layer, and the pass that joins them.
+ *
+ * Instead of a node per floor cell, each horizontal run of floor in a row is one node of a
+ * union-find; a run is joined to every run in the row below that shares a column with it. Runs
+ * are found a word at a time from the packed layer, so labelling a world costs about one step
+ * per run rather than per cell.
+ *
+ * Generation can leave rooms unreachable when Hallway.generateHallway can't fit a hallway along
+ * a planned edge. connect() checks for that after the floors are carved and adds repair
+ * hallways until every room is in one component.
+ */
+public class FloorComponents {
+    // repair hallways to try per component before giving up on it
+    private static final int MAX_REPAIR_ATTEMPTS = 16;
+
+    private final int[] rowStart;
+    private final int[] runStart;
+    private final int[] runEnd;
+    private final UnionFind sets;
+
+    /**
+     * Label the components of a floor layer
+     * @param floors a bit set for every floor cell
+     */
+    public FloorComponents(BitGrid floors) {
+        int height = floors.height();
+        rowStart = new int[height + 1];
+        int[] starts = new int[Math.max(16, height)];
+        int[] ends = new int[starts.length];
+        int runs = 0;
+        for (int y = 0; y < height; y++) {
+            rowStart[y] = runs;
+            int x = floors.nextSetBit(y, 0);
+            while (x < floors.width()) {
+                if (runs == starts.length) {
+                    starts = Arrays.copyOf(starts, runs * 2);
+                    ends = Arrays.copyOf(ends, runs * 2);
+                }
+                starts[runs] = x;
+                ends[runs] = floors.nextClearBit(y, x);
+                x = floors.nextSetBit(y, ends[runs]);
+                runs++;
+            }
+        }
+        rowStart[height] = runs;
+        runStart = starts;
+        runEnd = ends;
+
+        // join each run to the overlapping runs of the row below; both rows are sorted by x
+        sets = new UnionFind(runs);
+        for (int y = 1; y < height; y++) {
+            int below = rowStart[y - 1];
+            for (int run = rowStart[y]; run < rowStart[y + 1]; run++) {
+                while (below < rowStart[y] && runEnd[below] <= runStart[run]) {
+                    below++;
+                }
+                for (int b = below; b < rowStart[y] && runStart[b] < runEnd[run]; b++) {
+                    sets.union(run, b);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of connected components of floor
+     */
+    public int count() {
+        return sets.count();
+    }
+
+    /**
+     * Component of the floor cell at (x, y). Two cells are connected if and only if their
+     * components are equal.
+     * @return the component, or -1 if (x, y) is not floor
+     */
+    public int componentOf(int x, int y) {
+        int lo = rowStart[y];
+        int hi = rowStart[y + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (runEnd[mid] <= x) {
+                lo = mid + 1;
+            } else if (runStart[mid] > x) {
+                hi = mid - 1;
+            } else {
+                return sets.find(mid);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Number of floor cells in a component, found by adding up the lengths of its runs
+     * @param component a component, as returned by componentOf
+     * @return the number of cells
+     */
+    public int size(int component) {
+        int cells = 0;
+        for (int run = 0; run < rowStart[rowStart.length - 1]; run++) {
+            if (sets.find(run) == component) {
+                cells += runEnd[run] - runStart[run];
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Make sure every room can be reached from every other one. While the rooms are split over
+     * more than one component, each smaller component gets a hallway to the component with the
+     * most rooms, between the closest pair of rooms that Hallway.generateHallway can fit one
+     * between. Repair hallways are carved into the tiles and the floor layer and added to the
+     * hallways. rnd is only used if a repair is needed, so connected worlds come out the same
+     * as without this pass.
+     *
+     * @param tiles the grid the floors are carved in, before walls are added
+     * @param floors the floor layer of the grid
+     * @param rooms the rooms of the world
+     * @param hallways the hallways of the world; repair hallways are added to it
+     * @param rnd the random object to use
+     * @return how many repair hallways were added
+     */
+    public static int connect(TileGrid tiles, BitGrid floors, List<Room> rooms,
+                              List<Hallway> hallways, Random rnd) {
+        return connect(rooms, hallways, rnd, () -> {
+            FloorComponents components = new FloorComponents(floors);
+            if (components.count() <= 1) {
+                return List.of();
+            }
+            return groupRooms(rooms, i -> components.componentOf(rooms.get(i).getLeftX() + 1,
+                    rooms.get(i).getBottomY() + 1));
+        }, bridge -> {
+            bridge.fill(tiles, Tileset.FLOOR);
+            bridge.fill(floors);
+        });
+    }
+
+    /**
+     * The repair pass of connect, for callers that track the components some other way than
+     * with a floor layer
+     *
+     * @param rooms the rooms of the world
+     * @param hallways the hallways of the world; repair hallways are added to it
+     * @param rnd the random object to use
+     * @param grouping the rooms split up by component as they are now, as made by groupRooms;
+     *                 called again after every round of repairs
+     * @param carve called with each repair hallway before it is added to hallways
+     * @return how many repair hallways were added
+     */
+    static int connect(List<Room> rooms, List<Hallway> hallways, Random rnd,
+                       Supplier<List<List<Room>>> grouping, Consumer<Hallway> carve) {
+        int repairs = 0;
+        while (true) {
+            List<List<Room>> groups = grouping.get();
+            if (groups.size() <= 1) {
+                // any other floor is a stray piece of hallway with no room to connect to
+                return repairs;
+            }
+
+            List<Room> main = groups.get(0);
+            for (List<Room> g : groups) {
+                if (g.size() > main.size()) {
+                    main = g;
+                }
+            }
+
+            boolean progress = false;
+            for (List<Room> g : groups) {
+                if (g == main) {
+                    continue;
+                }
+                Hallway bridge = bridge(g, main, rnd);
+                if (bridge != null) {
+                    carve.accept(bridge);
+                    hallways.add(bridge);
+                    repairs++;
+                    progress = true;
+                }
+            }
+            if (!progress) {
+                return repairs;
+            }
+        }
+    }
+
+    /**
+     * The rooms split up by component, in order of each component's first room
+     *
+     * @param rooms the rooms of the world
+     * @param componentOf the component of the room at an index of rooms
+     * @return the groups
+     */
+    static List<List<Room>> groupRooms(List<Room> rooms, IntUnaryOperator componentOf) {
+        Map<Integer, List<Room>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < rooms.size(); i++) {
+            groups.computeIfAbsent(componentOf.applyAsInt(i), k -> new ArrayList<>())
+                    .add(rooms.get(i));
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    /**
+     * Hallway from a room of one group to a room of the other, trying the closest pairs first
+     * @return the hallway, or null if none of the pairs tried fit one
+     */
+    private static Hallway bridge(List<Room> from, List<Room> to, Random rnd) {
+        List<int[]> pairs = new ArrayList<>();
+        for (int i = 0; i < from.size(); i++) {
+            for (int j = 0; j < to.size(); j++) {
+                pairs.add(new int[]{Room.distBetweenRooms(from.get(i), to.get(j)), i, j});
+            }
+        }
+        pairs.sort(Comparator.<int[]>comparingInt(p -> p[0])
+                .thenComparingInt(p -> p[1]).thenComparingInt(p -> p[2]));
+
+        for (int k = 0; k < Math.min(MAX_REPAIR_ATTEMPTS, pairs.size()); k++) {
+            int[] pair = pairs.get(k);
+            try {
+                return Hallway.generateHallway(from.get(pair[1]), to.get(pair[2]), rnd);
+            } catch (IllegalArgumentException e) {
+                // no room for a hallway between these two; try the next pair
+            }
+        }
+        return null;
+    }
+}
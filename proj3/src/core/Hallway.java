@@ -1,9 +1,13 @@
 package core;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Random;
 import java.awt.Point;
-import com.google.common.collect.Iterators;
+
+import tileengine.TETile;
+import tileengine.TileGrid;
+import utils.BitGrid;
 
 public class Hallway implements Iterable<Point> {
     Point start;
@@ -167,17 +171,91 @@ public class Hallway implements Iterable<Point> {
     }
 
     /**
-     * Returns an iterator over {@code Point} coordinates of floor tiles.
+     * Call the consumer with the coordinates of each floor tile, in the same order as iterator()
+     * (so the turn is visited twice) but without allocating a Point per tile.
+     *
+     * @param action the consumer to call
+     */
+    public void forEachCell(CellConsumer action) {
+        if (hasTurn()) {
+            forEachOnSegment(start, turn, action);
+            forEachOnSegment(turn, end, action);
+        } else {
+            forEachOnSegment(start, end, action);
+        }
+    }
+
+    private static void forEachOnSegment(Point from, Point to, CellConsumer action) {
+        int dx = Integer.signum(to.x - from.x);
+        int dy = Integer.signum(to.y - from.y);
+        int x = from.x;
+        int y = from.y;
+        while (true) {
+            action.accept(x, y);
+            if (x == to.x && y == to.y) {
+                return;
+            }
+            x += dx;
+            y += dy;
+        }
+    }
+
+    /**
+     * Set every floor tile of the hallway in the grid to the given tile
+     *
+     * @param grid the grid to draw into
+     * @param tile the tile to draw
+     */
+    public void fill(TileGrid grid, TETile tile) {
+        if (hasTurn()) {
+            grid.fillSegment(start.x, start.y, turn.x, turn.y, tile);
+            grid.fillSegment(turn.x, turn.y, end.x, end.y, tile);
+        } else {
+            grid.fillSegment(start.x, start.y, end.x, end.y, tile);
+        }
+    }
+
+    /**
+     * Set the bit of every floor tile of the hallway in a layer the size of the world
+     *
+     * @param bits the layer to mark
+     */
+    public void fill(BitGrid bits) {
+        if (hasTurn()) {
+            bits.fillSegment(start.x, start.y, turn.x, turn.y);
+            bits.fillSegment(turn.x, turn.y, end.x, end.y);
+        } else {
+            bits.fillSegment(start.x, start.y, end.x, end.y);
+        }
+    }
+
+    /**
+     * Returns an iterator over {@code Point} coordinates of floor tiles. This allocates a Point
+     * per tile; forEachCell and fill don't.
      *
      * @return an Iterator.
      */
     @Override
     public Iterator<Point> iterator() {
-        if (hasTurn()) {
-            return Iterators.concat(new P2pIterator(start, turn), new P2pIterator(turn, end));
-        } else {
+        if (!hasTurn()) {
             return new P2pIterator(start, end);
         }
+        Iterator<Point> first = new P2pIterator(start, turn);
+        Iterator<Point> second = new P2pIterator(turn, end);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return first.hasNext() || second.hasNext();
+            }
+
+            @Override
+            public Point next() {
+                if (first.hasNext()) {
+                    return first.next();
+                }
+                return second.next();
+            }
+        };
     }
 
     private class P2pIterator implements Iterator<Point> {
@@ -221,6 +299,9 @@ public class Hallway implements Iterable<Point> {
 
         @Override
         public Point next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
             Point p;
             if (direction == Direction.UP) {
                 p = new Point(constValue, pointer);
@@ -0,0 +1,249 @@
+package core;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import utils.LongHeap;
+
+/**
+ * Chooses which pairs of rooms to connect with hallways. The pairs form a minimum spanning tree
+ * over the room centres, using Room.distBetweenRooms as the edge weight.
+ *
+ * A full spanning tree over n rooms would look at all n^2 pairs, so the tree is only built from
+ * each room's k nearest neighbours, found through a uniform grid of room centres. That is almost
+ * always enough to connect every room; if it is not, k is doubled and the tree keeps growing
+ * from the rooms already connected.
+ */
+public class HallwayPlanner {
+    private static final int CELL_SIZE = 16;
+    private static final int INITIAL_NEIGHBOURS = 6;
+
+    private final List<Room> rooms;
+    private final int[] centerX;
+    private final int[] centerY;
+
+    // uniform grid over the room centres; cellStart[c] .. cellStart[c + 1] index into cellRooms
+    private final int minX;
+    private final int minY;
+    private final int columns;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] cellRooms;
+
+    // k nearest neighbour graph, made undirected; the neighbours of room i are
+    // adjacency[adjacencyStart[i]] .. adjacency[adjacencyStart[i + 1] - 1]
+    private int[] adjacencyStart;
+    private int[] adjacency;
+
+    private HallwayPlanner(List<Room> rooms) {
+        this.rooms = rooms;
+        int n = rooms.size();
+        centerX = new int[n];
+        centerY = new int[n];
+        int lowX = Integer.MAX_VALUE;
+        int lowY = Integer.MAX_VALUE;
+        int highX = Integer.MIN_VALUE;
+        int highY = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            Room r = rooms.get(i);
+            centerX[i] = r.origin.x + r.width / 2;
+            centerY[i] = r.origin.y + r.height / 2;
+            lowX = Math.min(lowX, centerX[i]);
+            lowY = Math.min(lowY, centerY[i]);
+            highX = Math.max(highX, centerX[i]);
+            highY = Math.max(highY, centerY[i]);
+        }
+        minX = lowX;
+        minY = lowY;
+        columns = (highX - lowX) / CELL_SIZE + 1;
+        rows = (highY - lowY) / CELL_SIZE + 1;
+
+        // counting sort of the rooms into their cells
+        cellStart = new int[columns * rows + 1];
+        for (int i = 0; i < n; i++) {
+            cellStart[cellOf(i) + 1]++;
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        cellRooms = new int[n];
+        int[] next = Arrays.copyOf(cellStart, columns * rows);
+        for (int i = 0; i < n; i++) {
+            cellRooms[next[cellOf(i)]++] = i;
+        }
+    }
+
+    /**
+     * Plan the hallways for a list of rooms. The result lists the connections in the order they
+     * were added to the tree, starting from the first room: entry 2i is a room that is already
+     * connected and entry 2i + 1 is the room it connects to.
+     *
+     * @param rooms the rooms to connect
+     * @return pairs of room indices, flattened into one array of length 2 * (rooms.size() - 1)
+     */
+    public static int[] plan(List<Room> rooms) {
+        if (rooms.size() < 2) {
+            return new int[0];
+        }
+        return new HallwayPlanner(rooms).minimumSpanningTree();
+    }
+
+    private int[] minimumSpanningTree() {
+        int n = rooms.size();
+        int[] edges = new int[2 * (n - 1)];
+        int edgeCount = 0;
+
+        BitSet connected = new BitSet(n);
+        int[] bestDist = new int[n];
+        int[] bestFrom = new int[n];
+        Arrays.fill(bestDist, Integer.MAX_VALUE);
+        LongHeap heap = new LongHeap(n);
+
+        int k = INITIAL_NEIGHBOURS;
+        buildNeighbourGraph(k);
+        connected.set(0);
+        offerNeighbours(0, connected, bestDist, bestFrom, heap);
+        while (edgeCount < edges.length) {
+            if (heap.isEmpty()) {
+                // the k nearest neighbour graph is not connected; widen it and offer edges
+                // from every connected room again
+                k *= 2;
+                buildNeighbourGraph(k);
+                for (int i = connected.nextSetBit(0); i >= 0; i = connected.nextSetBit(i + 1)) {
+                    offerNeighbours(i, connected, bestDist, bestFrom, heap);
+                }
+                continue;
+            }
+            long top = heap.pop();
+            int room = (int) top;
+            int dist = (int) (top >>> 32);
+            if (connected.get(room) || dist != bestDist[room]) {
+                continue;
+            }
+            connected.set(room);
+            edges[edgeCount++] = bestFrom[room];
+            edges[edgeCount++] = room;
+            offerNeighbours(room, connected, bestDist, bestFrom, heap);
+        }
+        return edges;
+    }
+
+    /**
+     * Push an edge from room to each unconnected neighbour where it improves on the best edge
+     * seen so far for that neighbour.
+     */
+    private void offerNeighbours(int room, BitSet connected, int[] bestDist, int[] bestFrom,
+                                 LongHeap heap) {
+        for (int i = adjacencyStart[room]; i < adjacencyStart[room + 1]; i++) {
+            int other = adjacency[i];
+            if (connected.get(other)) {
+                continue;
+            }
+            int dist = distance(room, other);
+            if (dist < bestDist[other]) {
+                bestDist[other] = dist;
+                bestFrom[other] = room;
+                heap.push(((long) dist << 32) | other);
+            }
+        }
+    }
+
+    /**
+     * Build the graph connecting every room to its k nearest rooms, in both directions.
+     */
+    private void buildNeighbourGraph(int k) {
+        int n = rooms.size();
+        k = Math.min(k, n - 1);
+        int[] nearest = new int[n * k];
+        int[] found = new int[n];
+        int[] neighbours = new int[k];
+        int[] dists = new int[k];
+        adjacencyStart = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            found[i] = nearest(i, neighbours, dists);
+            System.arraycopy(neighbours, 0, nearest, i * k, found[i]);
+            for (int j = 0; j < found[i]; j++) {
+                adjacencyStart[i + 1]++;
+                adjacencyStart[neighbours[j] + 1]++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            adjacencyStart[i + 1] += adjacencyStart[i];
+        }
+        adjacency = new int[adjacencyStart[n]];
+        int[] next = Arrays.copyOf(adjacencyStart, n);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < found[i]; j++) {
+                int other = nearest[i * k + j];
+                adjacency[next[i]++] = other;
+                adjacency[next[other]++] = i;
+            }
+        }
+    }
+
+    /**
+     * Find up to neighbours.length rooms nearest to the given room, searching the grid in square
+     * rings of cells around it.
+     *
+     * @return how many rooms were written to the start of neighbours, nearest first
+     */
+    private int nearest(int room, int[] neighbours, int[] dists) {
+        int k = neighbours.length;
+        int found = 0;
+        int cx = (centerX[room] - minX) / CELL_SIZE;
+        int cy = (centerY[room] - minY) / CELL_SIZE;
+        int maxRing = Math.max(Math.max(cx, columns - 1 - cx), Math.max(cy, rows - 1 - cy));
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int y = cy - ring; y <= cy + ring; y++) {
+                if (y < 0 || y >= rows) {
+                    continue;
+                }
+                boolean edgeRow = y == cy - ring || y == cy + ring;
+                for (int x = cx - ring; x <= cx + ring; x += edgeRow ? 1 : 2 * ring) {
+                    if (x < 0 || x >= columns) {
+                        continue;
+                    }
+                    int cell = y * columns + x;
+                    for (int j = cellStart[cell]; j < cellStart[cell + 1]; j++) {
+                        int other = cellRooms[j];
+                        if (other == room) {
+                            continue;
+                        }
+                        int dist = distance(room, other);
+                        if (found == k && dist >= dists[k - 1]) {
+                            continue;
+                        }
+                        // insertion into the sorted candidate list
+                        int pos = found < k ? found++ : k - 1;
+                        while (pos > 0 && dists[pos - 1] > dist) {
+                            dists[pos] = dists[pos - 1];
+                            neighbours[pos] = neighbours[pos - 1];
+                            pos--;
+                        }
+                        dists[pos] = dist;
+                        neighbours[pos] = other;
+                    }
+                    if (ring == 0) {
+                        break;
+                    }
+                }
+            }
+            // every centre beyond this ring is more than ring * CELL_SIZE away
+            if (found == k && dists[k - 1] <= ring * CELL_SIZE) {
+                break;
+            }
+        }
+        return found;
+    }
+
+    private int cellOf(int room) {
+        return (centerY[room] - minY) / CELL_SIZE * columns + (centerX[room] - minX) / CELL_SIZE;
+    }
+
+    // same as Room.distBetweenRooms, from the cached centres
+    private int distance(int a, int b) {
+        return Math.abs(centerX[a] - centerX[b]) + Math.abs(centerY[a] - centerY[b]);
+    }
+}
@@ -1,16 +1,28 @@
 package core;
+import tileengine.Camera;
 import tileengine.TERenderer;
 import edu.princeton.cs.algs4.StdDraw;
-import utils.FileUtils;
 import tileengine.TETile;
 
+import java.nio.file.Path;
+
 public class Main {
     
+    // size of the window in tiles, and of new worlds unless a size is given on the command line
     private static final int WIDTH = 70;
     private static final int HEIGHT = 30;
 
     private static final int HALFWIDTH = 35;
 
+    // input is polled and frames are drawn at most this many times per second
+    private static final int TICKS_PER_SECOND = 60;
+
+    // run with -DreportLatency=true to print the measured input latency on :q
+    private static final boolean REPORT_LATENCY = Boolean.getBoolean("reportLatency");
+
+    // autosave of the running session, for recovering it after a crash
+    private static final Path JOURNAL = Path.of(MoveJournal.JOURNAL_FILE);
+
     private static void renderMainMenu() {
         StdDraw.setPenColor(StdDraw.WHITE);
         StdDraw.text(HALFWIDTH, 17, "New Game (N)");
@@ -33,17 +45,37 @@ public class Main {
         StdDraw.show();
     }
 
+    private static void renderWorld(TERenderer ter, World world, Camera camera) {
+        if (world.isSightLimited()) {
+            ter.renderFrame(world.getTiles(), world.getVisible(), world.getExplored(),
+                    world.getAvatarX(), world.getAvatarY(), world.getSightRadius(), camera);
+        } else {
+            ter.renderFrame(world.getTiles(), camera);
+        }
+    }
+
     private static boolean mousePressedText(double mouseX, double mouseY, int textY) {
         return mouseX > HALFWIDTH - 10 && mouseX < HALFWIDTH + 10
                 && mouseY > textY - 1 && mouseY < textY + 1;
     }
+
+    /**
+     * Play the game in a WIDTH x HEIGHT window. New worlds are the size of the window unless a
+     * width and height are given as arguments; larger worlds scroll with the avatar.
+     *
+     * @param args optionally the width and height of new worlds, in tiles
+     */
     public static void main(String[] args) {
+        int worldWidth = args.length >= 2 ? Integer.parseInt(args[0]) : WIDTH;
+        int worldHeight = args.length >= 2 ? Integer.parseInt(args[1]) : HEIGHT;
         TERenderer ter = new TERenderer();
         ter.initialize(WIDTH, HEIGHT + 2);
         renderMainMenu();
+        TickScheduler ticks = new TickScheduler(TICKS_PER_SECOND);
 
         World generatedWorld;
         while (true) { // get seed loop
+            ticks.awaitNextTick();
             if (StdDraw.hasNextKeyTyped() || StdDraw.isMousePressed()) {
                 char c = ' ';
                 if (StdDraw.hasNextKeyTyped()) {
@@ -61,49 +93,60 @@ public class Main {
                     StdDraw.show();
 
                     long seed = 0;
+                    seedEntry:
                     while (true) {
-                        if (StdDraw.hasNextKeyTyped()) {
+                        ticks.awaitNextTick();
+                        while (StdDraw.hasNextKeyTyped()) {
                             char d = Character.toLowerCase(StdDraw.nextKeyTyped());
                             if (d == 'q') {
                                 System.exit(0); // maybe not necessary
                             } else if (d == 's') {
-                                break;
+                                break seedEntry;
                             } else if (Character.isDigit(d)) {
                                 seed = seed * 10 + Integer.parseInt(String.valueOf(d));
                                 setSeedText(seed);
                             }
                         }
                     }
-                    generatedWorld = new World(seed, HEIGHT, WIDTH);
+                    generatedWorld = new World(seed, worldHeight, worldWidth);
                     break;
                 } else if (c == 'l' || (mouseClicked && mousePressedText(mouseX, mouseY, 15))) {
-                    // load game from save
-                    String save = FileUtils.readFile("save.txt"); // errors if there is no file
-                    generatedWorld = World.loadWorld(save, HEIGHT, WIDTH);
+                    // a journal is only left behind if the last session didn't end with :q
+                    MoveJournal.Recovery recovered = MoveJournal.recover(JOURNAL);
+                    if (recovered != null) {
+                        generatedWorld = recovered.world();
+                    } else {
+                        // load game from save; errors if no file
+                        generatedWorld = SaveFile.load(worldHeight, worldWidth);
+                    }
                     break;
                 } else if (c == 'q' || (mouseClicked && mousePressedText(mouseX, mouseY, 13))) {
                     System.exit(0);
                 }
             }
         }
-        ter.renderFrame(generatedWorld.getTileSet());
+        MoveJournal journal = MoveJournal.start(JOURNAL, generatedWorld);
+        Camera camera = new Camera(WIDTH, HEIGHT, generatedWorld.getWidth(),
+                generatedWorld.getHeight());
+        camera.jumpTo(generatedWorld.getAvatarX(), generatedWorld.getAvatarY());
+        renderWorld(ter, generatedWorld, camera);
 
         char prevKey = ' ';
+        TETile shownHoverTile = null;
+        boolean wasMousePressed = false;
         while (true) { // movement loop
-            // handles mouse hovering display
-            int mouseX = (int) Math.min(StdDraw.mouseX(), WIDTH - 1);
-            int mouseY = (int) Math.min(StdDraw.mouseY(), HEIGHT - 1);
-            if (mouseX >= 0 && mouseX < WIDTH && mouseY >= 0 && mouseY < HEIGHT) {
-                TETile hoverTile = generatedWorld.getTileSet()[mouseX][mouseY];
-                setHoverText(hoverTile);
-            }
-            StdDraw.show();
-
-            if (StdDraw.hasNextKeyTyped()) {
+            ticks.awaitNextTick();
+            boolean handledInput = false;
+            while (StdDraw.hasNextKeyTyped()) {
                 char key = Character.toLowerCase(StdDraw.nextKeyTyped());
                 if (key == 'q' && prevKey == ':') {
                     // save and quit
-                    FileUtils.writeFile("save.txt", generatedWorld.getSave());
+                    SaveFile.save(generatedWorld);
+                    journal.discard();
+                    if (REPORT_LATENCY) {
+                        System.out.printf("Input latency: %.1f ms average, %.1f ms max%n",
+                                ticks.averageInputLatencyMillis(), ticks.maxInputLatencyMillis());
+                    }
                     System.exit(0);
                 } else if ("wasd".indexOf(key) != -1) {
                     generatedWorld.moveAvatar(key);
@@ -111,9 +154,50 @@ public class Main {
                     generatedWorld.toggleSightLimit();
                 } else if (key == 'u') {
                     generatedWorld.undoMove();
+                } else if (key == 'r') {
+                    generatedWorld.redoMove();
                 }
                 prevKey = key;
-                ter.renderFrame(generatedWorld.getTileSet());
+                handledInput = true;
+            }
+
+            // clicking a tile walks the avatar there, once per press
+            boolean mousePressed = StdDraw.isMousePressed();
+            if (mousePressed && !wasMousePressed) {
+                double clickX = StdDraw.mouseX();
+                double clickY = StdDraw.mouseY();
+                if (camera.showsWorldAt(clickX, clickY)) {
+                    handledInput |= generatedWorld.travelTo(camera.worldX(clickX),
+                            camera.worldY(clickY));
+                }
+            }
+            wasMousePressed = mousePressed;
+
+            // scroll towards the avatar, a step per tick
+            camera.follow(generatedWorld.getAvatarX(), generatedWorld.getAvatarY());
+            boolean scrolled = camera.update();
+
+            // handles mouse hovering display; the tile under the mouse changes as the camera
+            // scrolls, too
+            boolean hoverChanged = false;
+            double mouseX = Math.min(StdDraw.mouseX(), WIDTH - 1);
+            double mouseY = Math.min(StdDraw.mouseY(), HEIGHT - 1);
+            if (camera.showsWorldAt(mouseX, mouseY)) {
+                TETile hoverTile = generatedWorld.getTile(camera.worldX(mouseX),
+                        camera.worldY(mouseY));
+                if (hoverTile != shownHoverTile) {
+                    setHoverText(hoverTile);
+                    shownHoverTile = hoverTile;
+                    hoverChanged = true;
+                }
+            }
+
+            // only draw a frame when something on screen changed
+            if (handledInput || hoverChanged || scrolled) {
+                renderWorld(ter, generatedWorld, camera);
+            }
+            if (handledInput) {
+                ticks.recordInputShown();
             }
         }
     }
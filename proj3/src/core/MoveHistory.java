@@ -0,0 +1,322 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The recorded moves of a session, with a cursor that undo and redo move along, and the
+ * state of the session every World.CHECKPOINT_INTERVAL moves.
+ *
+ * Moves are kept one byte each in a growing array, and checkpoint k is the avatar position and
+ * sight limit after k * CHECKPOINT_INTERVAL moves, kept in int and boolean arrays indexed by k.
+ * Checkpoint 0 is the start of the session. Undoing moves keeps them (and their checkpoints)
+ * for redo until a new move is recorded, which drops them. Going to any move from a checkpoint
+ * takes fewer than CHECKPOINT_INTERVAL moves, however long the session is.
+ *
+ * Checkpoints are always a prefix: checkpointCount() of them are known, for moves 0,
+ * CHECKPOINT_INTERVAL, 2 * CHECKPOINT_INTERVAL and so on. The history doesn't apply moves; the
+ * world does, and adds the next checkpoint when needsCheckpoint() says it has reached it.
+ *
+ * freeze() hands out a read-only copy that shares the arrays, so another thread can read the
+ * history as of that moment while this one keeps recording. Recording past the end of the copy
+ * leaves it intact; the arrays are only copied if a write would land inside it (a move recorded
+ * after an undo) before the reader has released it.
+ */
+class MoveHistory {
+    private static final int INTERVAL = World.CHECKPOINT_INTERVAL;
+
+    private byte[] moves = new byte[64];
+    // moves[0, size) are recorded; moves[0, position) are applied, the rest can be redone
+    private int size = 0;
+    private int position = 0;
+
+    private int[] checkpointX = new int[4];
+    private int[] checkpointY = new int[4];
+    private boolean[] checkpointSight = new boolean[4];
+    private int checkpointCount = 0;
+
+    // the last frozen copy sharing these arrays, or null
+    private MoveHistory frozen;
+    // set on a frozen copy once its reader is done with it
+    private volatile boolean released = false;
+    // on a frozen copy, the copy frozen before it if that may still be read; it covers no more
+    // of the arrays than this one
+    private MoveHistory previous;
+
+    /**
+     * @param startX the x coordinate of the avatar at the start of the session
+     * @param startY the y coordinate of the avatar at the start of the session
+     */
+    MoveHistory(int startX, int startY) {
+        addCheckpoint(startX, startY, false);
+    }
+
+    private MoveHistory(MoveHistory source) {
+        moves = source.moves;
+        size = source.size;
+        position = source.position;
+        checkpointX = source.checkpointX;
+        checkpointY = source.checkpointY;
+        checkpointSight = source.checkpointSight;
+        checkpointCount = source.checkpointCount;
+    }
+
+    /**
+     * Take a read-only copy of the history as it is now, in constant time. Only read the copy
+     * (for instance from another thread), and release it when done.
+     *
+     * @return the copy
+     */
+    MoveHistory freeze() {
+        MoveHistory copy = new MoveHistory(this);
+        if (frozen != null && !frozen.isReleased()) {
+            copy.previous = frozen;
+        }
+        frozen = copy;
+        return copy;
+    }
+
+    /**
+     * Tell the history this frozen copy was taken from that nothing reads the copy any more
+     */
+    void release() {
+        released = true;
+    }
+
+    private boolean isReleased() {
+        if (previous != null && previous.isReleased()) {
+            previous = null;
+        }
+        return released && previous == null;
+    }
+
+    /**
+     * Stop sharing the arrays with the frozen copy, copying them if it may still be read
+     */
+    private void unshare() {
+        if (!frozen.isReleased()) {
+            moves = moves.clone();
+            checkpointX = checkpointX.clone();
+            checkpointY = checkpointY.clone();
+            checkpointSight = checkpointSight.clone();
+        }
+        frozen = null;
+    }
+
+    /**
+     * Record a move made at the cursor, dropping any undone moves after it
+     *
+     * @param key the move, as a character of the save format
+     */
+    void record(char key) {
+        truncate();
+        if (frozen != null && size < frozen.size) {
+            unshare();
+        }
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = (byte) key;
+        position = size;
+    }
+
+    /**
+     * Add recorded moves after the last one without applying them. Use seek to apply them.
+     *
+     * @param keys the moves, in the save format
+     */
+    void append(CharSequence keys) {
+        if (frozen != null && size < frozen.size) {
+            unshare();
+        }
+        if (size + keys.length() > moves.length) {
+            moves = Arrays.copyOf(moves, Math.max(size + keys.length(), moves.length * 2));
+        }
+        for (int i = 0; i < keys.length(); i++) {
+            moves[size++] = (byte) keys.charAt(i);
+        }
+    }
+
+    boolean canUndo() {
+        return position > 0;
+    }
+
+    boolean canRedo() {
+        return position < size;
+    }
+
+    /**
+     * Move the cursor back one move
+     *
+     * @return the move that was undone, for the world to reverse
+     */
+    char undo() {
+        if (!canUndo()) {
+            throw new IllegalStateException("Nothing to undo");
+        }
+        return (char) moves[--position];
+    }
+
+    /**
+     * Move the cursor forward one move
+     *
+     * @return the move that was redone, for the world to apply
+     */
+    char redo() {
+        if (!canRedo()) {
+            throw new IllegalStateException("Nothing to redo");
+        }
+        return (char) moves[position++];
+    }
+
+    /**
+     * @return how many moves are applied
+     */
+    int position() {
+        return position;
+    }
+
+    /**
+     * @return how many moves are recorded, including the ones that can be redone
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the applied moves, in the save format
+     */
+    String applied() {
+        return keys(position);
+    }
+
+    /**
+     * @return every recorded move, including the ones that can be redone, in the save format
+     */
+    String recorded() {
+        return keys(size);
+    }
+
+    private String keys(int count) {
+        StringBuilder out = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            out.append((char) moves[i]);
+        }
+        return out.toString();
+    }
+
+    /**
+     * @return true if the cursor is at the first move not covered by the known checkpoints
+     */
+    boolean needsCheckpoint() {
+        return position == checkpointCount * INTERVAL;
+    }
+
+    /**
+     * Record the state at the cursor as the next checkpoint; needsCheckpoint must be true
+     */
+    void addCheckpoint(int avatarX, int avatarY, boolean sightLimit) {
+        if (!needsCheckpoint()) {
+            throw new IllegalStateException("Move " + position + " is not the next checkpoint");
+        }
+        putCheckpoint(avatarX, avatarY, sightLimit);
+    }
+
+    /**
+     * Add a checkpoint read from a save, if it is the next one and within the recorded moves
+     *
+     * @param saved the checkpoint
+     * @return true if it was added
+     */
+    boolean addSavedCheckpoint(Checkpoint saved) {
+        if (saved.moveIndex() != checkpointCount * INTERVAL || saved.moveIndex() > size) {
+            return false;
+        }
+        putCheckpoint(saved.avatarX(), saved.avatarY(), saved.sightLimit());
+        return true;
+    }
+
+    private void putCheckpoint(int avatarX, int avatarY, boolean sightLimit) {
+        if (frozen != null && checkpointCount < frozen.checkpointCount) {
+            unshare();
+        }
+        if (checkpointCount == checkpointX.length) {
+            checkpointX = Arrays.copyOf(checkpointX, checkpointCount * 2);
+            checkpointY = Arrays.copyOf(checkpointY, checkpointCount * 2);
+            checkpointSight = Arrays.copyOf(checkpointSight, checkpointCount * 2);
+        }
+        checkpointX[checkpointCount] = avatarX;
+        checkpointY[checkpointCount] = avatarY;
+        checkpointSight[checkpointCount] = sightLimit;
+        checkpointCount++;
+    }
+
+    int checkpointCount() {
+        return checkpointCount;
+    }
+
+    /**
+     * @param moveIndex a move, from 0 to size()
+     * @return the last known checkpoint at or before it
+     */
+    int checkpointBefore(int moveIndex) {
+        if (moveIndex < 0 || moveIndex > size) {
+            throw new IndexOutOfBoundsException("Move " + moveIndex + " of " + size);
+        }
+        return Math.min(moveIndex / INTERVAL, checkpointCount - 1);
+    }
+
+    int checkpointX(int k) {
+        return checkpointX[k];
+    }
+
+    int checkpointY(int k) {
+        return checkpointY[k];
+    }
+
+    boolean checkpointSight(int k) {
+        return checkpointSight[k];
+    }
+
+    /**
+     * Put the cursor at checkpoint k, without applying anything; the world restores the
+     * checkpoint's state itself
+     */
+    void moveToCheckpoint(int k) {
+        position = k * INTERVAL;
+    }
+
+    /**
+     * @return the checkpoints after the start of the session that are within the applied moves,
+     * in order, for saving
+     */
+    List<Checkpoint> savedCheckpoints() {
+        return checkpointsUpTo(position);
+    }
+
+    /**
+     * @return the checkpoints after the start of the session that are within the recorded
+     * moves, in order
+     */
+    List<Checkpoint> recordedCheckpoints() {
+        return checkpointsUpTo(size);
+    }
+
+    private List<Checkpoint> checkpointsUpTo(int moveIndex) {
+        List<Checkpoint> out = new ArrayList<>();
+        for (int k = 1; k < checkpointCount && k * INTERVAL <= moveIndex; k++) {
+            out.add(new Checkpoint(k * INTERVAL, checkpointX[k], checkpointY[k],
+                    checkpointSight[k]));
+        }
+        return out;
+    }
+
+    /**
+     * Drop the moves after the cursor and the checkpoints past it
+     */
+    private void truncate() {
+        size = position;
+        checkpointCount = Math.min(checkpointCount, position / INTERVAL + 1);
+    }
+}
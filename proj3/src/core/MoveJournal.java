@@ -0,0 +1,436 @@
+package core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of a running session, so that a crash loses at most the last moments of
+ * play instead of everything since the last ":q".
+ *
+ * The game thread only copies each event into an in-memory buffer. A background writer thread
+ * appends buffered events to the journal file and syncs it to disk with group commit: it waits
+ * until GROUP_COMMIT_EVENTS events are buffered or the oldest one is GROUP_COMMIT_MILLIS old,
+ * then writes them all as one record and forces the file once for the lot.
+ *
+ * The file starts with a header (magic number and version), followed by records framed as
+ * [int payload length][byte type][payload][int CRC32C of type and payload]. A SNAPSHOT record
+ * holds a whole session: an int move position, then the session in the SaveFile binary format
+ * with every recorded move, undone ones included, so that redo still works after recovery. An
+ * EVENTS record holds events: the keys w, a, s, d and t for recorded moves, u for an undo, r
+ * for a redo, and k followed by an int for a seek. Every SNAPSHOT_EVENTS events of any kind,
+ * the writer replaces the file with a new one that starts with a fresh snapshot, so recovery
+ * never has more than about that many events to replay after restoring the snapshot. For a
+ * snapshot the game thread only hands over a frozen copy of the move history, which takes
+ * constant time however long the session is; the writer encodes it.
+ *
+ * On recovery, records are read until one is cut short or fails its checksum; that record and
+ * anything after it are the torn tail of a write the crash interrupted, and are ignored.
+ */
+public class MoveJournal implements AutoCloseable {
+    public static final String JOURNAL_FILE = "journal.bin";
+    static final int GROUP_COMMIT_EVENTS = 256;
+    static final long GROUP_COMMIT_MILLIS = 50;
+    static final int SNAPSHOT_EVENTS = 4096;
+
+    private static final int MAGIC = 0x57474A4C; // "WGJL"
+    private static final int VERSION = 2;
+    // version 1 snapshots hold only the applied moves, without a move position
+    private static final int VERSION_APPLIED_ONLY = 1;
+    private static final byte SNAPSHOT = 1;
+    private static final byte EVENTS = 2;
+    // length, type and checksum
+    private static final int FRAME_BYTES = 9;
+
+    /**
+     * The session rebuilt from a journal.
+     *
+     * @param world the session as of the last intact record
+     * @param events how many events were replayed after the last snapshot
+     * @param tornBytes how many bytes at the end of the file were cut short or corrupt
+     */
+    public record Recovery(World world, int events, long tornBytes) { }
+
+    private final Path file;
+    private final World world;
+    private final Thread writer;
+    private int eventsSinceSnapshot = 0;
+
+    // everything below is guarded by this
+    private byte[] pending = new byte[GROUP_COMMIT_EVENTS * 2];
+    private int pendingSize = 0;
+    private int pendingEvents = 0;
+    private long oldestPendingNanos;
+    private MoveHistory pendingSnapshot;
+    // events accepted and events known to be on disk, counted from the start of the journal
+    private long accepted = 0;
+    private long durable = 0;
+    private boolean closing = false;
+    private boolean flushRequested = false;
+    private IOException failure;
+    private long syncs = 0;
+
+    private MoveJournal(Path file, World world) {
+        this.file = file;
+        this.world = world;
+        this.pendingSnapshot = world.freezeHistory();
+        this.accepted = 1; // the snapshot, so that flush waits for it
+        this.writer = new Thread(this::writeLoop, "move-journal");
+        writer.setDaemon(true);
+    }
+
+    /**
+     * Start journaling a session to a file, replacing whatever journal was there. The session
+     * is snapshotted first, and from then on it reports its events to the journal by itself.
+     *
+     * @param file the journal file
+     * @param world the session to journal
+     * @return the journal
+     */
+    public static MoveJournal start(Path file, World world) {
+        MoveJournal journal = new MoveJournal(file, world);
+        journal.writer.start();
+        world.attachJournal(journal);
+        return journal;
+    }
+
+    /**
+     * Journal a move the session recorded
+     *
+     * @param key the move, as a character of the save format
+     */
+    void recordMove(char key) {
+        record((byte) key, 0, false);
+    }
+
+    void recordUndo() {
+        record((byte) 'u', 0, false);
+    }
+
+    void recordRedo() {
+        record((byte) 'r', 0, false);
+    }
+
+    void recordSeek(int moveIndex) {
+        record((byte) 'k', moveIndex, true);
+    }
+
+    /**
+     * Journal an event the session has already applied. Every SNAPSHOT_EVENTS events this
+     * snapshots the session instead.
+     */
+    private void record(byte event, int argument, boolean hasArgument) {
+        if (++eventsSinceSnapshot >= SNAPSHOT_EVENTS) {
+            snapshot();
+        } else {
+            append(event, argument, hasArgument);
+        }
+    }
+
+    private void snapshot() {
+        MoveHistory snapshot = world.freezeHistory();
+        synchronized (this) {
+            checkFailure();
+            // the snapshot covers the events still buffered, so they needn't be written
+            accepted += 1;
+            pendingSize = 0;
+            pendingEvents = 0;
+            if (pendingSnapshot != null) {
+                // the writer never took it, and won't now
+                pendingSnapshot.release();
+            }
+            pendingSnapshot = snapshot;
+            eventsSinceSnapshot = 0;
+            notifyAll();
+        }
+    }
+
+    private synchronized void append(byte event, int argument, boolean hasArgument) {
+        checkFailure();
+        if (pendingSize + 5 > pending.length) {
+            pending = Arrays.copyOf(pending, pending.length * 2);
+        }
+        if (pendingEvents == 0) {
+            oldestPendingNanos = System.nanoTime();
+        }
+        pending[pendingSize++] = event;
+        if (hasArgument) {
+            pending[pendingSize++] = (byte) (argument >>> 24);
+            pending[pendingSize++] = (byte) (argument >>> 16);
+            pending[pendingSize++] = (byte) (argument >>> 8);
+            pending[pendingSize++] = (byte) argument;
+        }
+        pendingEvents++;
+        accepted++;
+        if (pendingEvents >= GROUP_COMMIT_EVENTS) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Block until every event journaled so far is on disk
+     */
+    public synchronized void flush() {
+        long target = accepted;
+        flushRequested = true;
+        notifyAll();
+        while (durable < target) {
+            checkFailure();
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+        checkFailure();
+    }
+
+    /**
+     * @return how many times the journal file has been forced to disk
+     */
+    public synchronized long syncs() {
+        return syncs;
+    }
+
+    /**
+     * Write out everything journaled so far and stop the writer. The session no longer reports
+     * to this journal.
+     */
+    @Override
+    public void close() {
+        world.attachJournal(null);
+        synchronized (this) {
+            closing = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        synchronized (this) {
+            checkFailure();
+        }
+    }
+
+    /**
+     * Close the journal and delete its file, once the session is safely saved elsewhere
+     */
+    public void discard() {
+        close();
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new RuntimeException("Journal write failed", failure);
+        }
+    }
+
+    private void writeLoop() {
+        FileChannel channel = null;
+        byte[] batch = new byte[pending.length];
+        try {
+            while (true) {
+                MoveHistory snapshot;
+                int batchSize;
+                long upTo;
+                synchronized (this) {
+                    while (!closing && !flushRequested && pendingSnapshot == null
+                            && pendingEvents < GROUP_COMMIT_EVENTS) {
+                        if (pendingEvents == 0) {
+                            wait();
+                        } else {
+                            long waitNanos = oldestPendingNanos
+                                    + GROUP_COMMIT_MILLIS * 1_000_000 - System.nanoTime();
+                            if (waitNanos <= 0) {
+                                break;
+                            }
+                            wait(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+                        }
+                    }
+                    if (closing && pendingSnapshot == null && pendingEvents == 0
+                            && durable == accepted) {
+                        return;
+                    }
+                    flushRequested = false;
+                    snapshot = pendingSnapshot;
+                    pendingSnapshot = null;
+                    if (batch.length < pendingSize) {
+                        batch = new byte[pending.length];
+                    }
+                    System.arraycopy(pending, 0, batch, 0, pendingSize);
+                    batchSize = pendingSize;
+                    pendingSize = 0;
+                    pendingEvents = 0;
+                    upTo = accepted;
+                }
+
+                if (snapshot != null) {
+                    byte[] encoded = encodeSnapshot(world, snapshot);
+                    snapshot.release();
+                    if (channel != null) {
+                        channel.close();
+                    }
+                    channel = rotate(encoded);
+                }
+                if (batchSize > 0) {
+                    writeRecord(channel, EVENTS, batch, batchSize);
+                }
+                channel.force(false);
+                synchronized (this) {
+                    syncs++;
+                    durable = upTo;
+                    notifyAll();
+                }
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                failure = e;
+                notifyAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // everything written was already forced
+                }
+            }
+        }
+    }
+
+    /**
+     * Write a new journal starting with the snapshot next to the old one, sync it, then move it
+     * over the old one, so there is always a complete journal on disk
+     */
+    private FileChannel rotate(byte[] snapshot) throws IOException {
+        Path next = file.resolveSibling(file.getFileName() + ".tmp");
+        FileChannel channel = FileChannel.open(next, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(5).putInt(MAGIC).put((byte) VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        writeRecord(channel, SNAPSHOT, snapshot, snapshot.length);
+        channel.force(false);
+        Files.move(next, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        return channel;
+    }
+
+    private static byte[] encodeSnapshot(World world, MoveHistory history) {
+        byte[] save = SaveFile.encodeRecorded(world, history);
+        return ByteBuffer.allocate(4 + save.length).putInt(history.position()).put(save).array();
+    }
+
+    private static World decodeSnapshot(byte[] data, int offset, int length, int version) {
+        if (version == VERSION_APPLIED_ONLY) {
+            return SaveFile.decode(Arrays.copyOfRange(data, offset, offset + length), 0, 0);
+        }
+        int position = ByteBuffer.wrap(data, offset, 4).getInt();
+        World world = SaveFile.decode(Arrays.copyOfRange(data, offset + 4, offset + length),
+                0, 0);
+        world.seek(position);
+        return world;
+    }
+
+    private static void writeRecord(FileChannel channel, byte type, byte[] payload, int length)
+            throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(type);
+        crc.update(payload, 0, length);
+        ByteBuffer frame = ByteBuffer.allocate(length + FRAME_BYTES);
+        frame.putInt(length).put(type).put(payload, 0, length).putInt((int) crc.getValue());
+        frame.flip();
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    /**
+     * Rebuild the session in a journal: restore its last intact snapshot, then replay the
+     * intact events after it. A torn tail is skipped.
+     *
+     * @param file the journal file
+     * @return the recovered session, or null if there is no journal or it has no intact
+     * snapshot
+     */
+    public static Recovery recover(Path file) {
+        byte[] data;
+        try {
+            if (!Files.exists(file)) {
+                return null;
+            }
+            data = Files.readAllBytes(file);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        ByteBuffer in = ByteBuffer.wrap(data);
+        if (in.remaining() < 5 || in.getInt() != MAGIC) {
+            return null;
+        }
+        int version = in.get();
+        if (version != VERSION && version != VERSION_APPLIED_ONLY) {
+            throw new RuntimeException("Unsupported journal version");
+        }
+
+        World world = null;
+        int events = 0;
+        while (in.remaining() >= FRAME_BYTES) {
+            int start = in.position();
+            int length = in.getInt();
+            if (length < 0 || (long) length + FRAME_BYTES - 4 > in.remaining()) {
+                in.position(start);
+                break;
+            }
+            byte type = in.get();
+            CRC32C crc = new CRC32C();
+            crc.update(type);
+            crc.update(data, in.position(), length);
+            int payload = in.position();
+            in.position(payload + length);
+            if (in.getInt() != (int) crc.getValue()) {
+                in.position(start);
+                break;
+            }
+
+            if (type == SNAPSHOT) {
+                world = decodeSnapshot(data, payload, length, version);
+                events = 0;
+            } else if (type == EVENTS && world != null) {
+                events += replay(world, ByteBuffer.wrap(data, payload, length));
+            }
+        }
+        return world == null ? null : new Recovery(world, events, in.remaining());
+    }
+
+    private static int replay(World world, ByteBuffer events) {
+        int count = 0;
+        while (events.hasRemaining()) {
+            byte event = events.get();
+            switch (event) {
+                case 'u' -> world.undoMove();
+                case 'r' -> world.redoMove();
+                case 'k' -> world.seek(events.getInt());
+                default -> world.replay((char) event);
+            }
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,198 @@
+package core;
+
+import tileengine.TileGrid;
+import utils.BitGrid;
+import utils.RandomUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+/**
+ * Generates a world in independent square regions on a ForkJoinPool.
+ *
+ * Each region places its own rooms and hallways with a Random seeded from (world seed, region x,
+ * region y) and carves them into the shared grid; regions never write to each other's tiles.
+ * Once every region is done, a stitching pass joins each pair of neighbouring regions with one
+ * hallway between rooms on either side of their border, FloorComponents.connect joins up
+ * anything still unreachable, and the walls are added in parallel row stripes. The region
+ * layout and every seed depend only on the world seed and size, so the result is the same for
+ * any number of threads.
+ */
+class ParallelWorldGenerator {
+    static final int REGION_SIZE = 256;
+    private static final int WALL_STRIPE_ROWS = 64;
+    // rooms this close to a border are candidates for the hallway across it
+    private static final int BORDER_MARGIN = 32;
+    private static final int MAX_STITCH_ATTEMPTS = 8;
+
+    private record Region(List<Room> rooms, List<Hallway> hallways) { }
+
+    /**
+     * Generate the rooms and hallways of a world and carve them into tiles
+     *
+     * @param seed the seed of the world
+     * @param tiles a grid of NOTHING tiles the size of the world
+     * @param floors an empty layer the size of the world; a bit is set for every floor cell
+     * @param rooms the list to add the rooms to
+     * @param hallways the list to add the hallways to
+     * @param pool the pool to generate on
+     * @return how many repair hallways FloorComponents.connect added
+     */
+    static int generate(long seed, TileGrid tiles, BitGrid floors, List<Room> rooms,
+                        List<Hallway> hallways, ForkJoinPool pool) {
+        int columns = Math.max(1, tiles.width() / REGION_SIZE);
+        int rows = Math.max(1, tiles.height() / REGION_SIZE);
+
+        List<Callable<Region>> tasks = new ArrayList<>();
+        for (int ry = 0; ry < rows; ry++) {
+            for (int rx = 0; rx < columns; rx++) {
+                int x0 = start(rx, columns, tiles.width());
+                int x1 = start(rx + 1, columns, tiles.width());
+                int y0 = start(ry, rows, tiles.height());
+                int y1 = start(ry + 1, rows, tiles.height());
+                long regionSeed = RandomUtils.deriveSeed(seed, rx, ry);
+                tasks.add(() -> generateRegion(tiles, floors, regionSeed, x0, y0, x1, y1));
+            }
+        }
+
+        List<Region> regions = new ArrayList<>();
+        for (Future<Region> f : pool.invokeAll(tasks)) {
+            try {
+                regions.add(f.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new RuntimeException(e.getCause());
+            }
+        }
+        for (Region r : regions) {
+            rooms.addAll(r.rooms());
+            hallways.addAll(r.hallways());
+        }
+
+        // stitch each region to its right and top neighbours
+        List<Hallway> stitches = new ArrayList<>();
+        for (int ry = 0; ry < rows; ry++) {
+            for (int rx = 0; rx < columns; rx++) {
+                Region region = regions.get(ry * columns + rx);
+                if (rx + 1 < columns) {
+                    int border = start(rx + 1, columns, tiles.width());
+                    Random rnd = new Random(RandomUtils.deriveSeed(~seed, 2L * rx, ry));
+                    addIfPresent(stitches, stitch(region, regions.get(ry * columns + rx + 1),
+                            border, true, rnd));
+                }
+                if (ry + 1 < rows) {
+                    int border = start(ry + 1, rows, tiles.height());
+                    Random rnd = new Random(RandomUtils.deriveSeed(~seed, 2L * rx + 1, ry));
+                    addIfPresent(stitches, stitch(region, regions.get((ry + 1) * columns + rx),
+                            border, false, rnd));
+                }
+            }
+        }
+        World.carveFloors(tiles, floors, List.of(), stitches);
+        hallways.addAll(stitches);
+
+        // join anything left unreachable, inside a region or across a border that nothing could
+        // be stitched across. This labels the whole floor layer, so it runs once every region
+        // is done rather than inside each one
+        Random rnd = new Random(RandomUtils.deriveSeed(~seed, -1, -1));
+        int repairs = FloorComponents.connect(tiles, floors, rooms, hallways, rnd);
+
+        int stripes = (tiles.height() + WALL_STRIPE_ROWS - 1) / WALL_STRIPE_ROWS;
+        pool.submit(() -> IntStream.range(0, stripes).parallel().forEach(i ->
+                World.surroundWithWalls(tiles, floors, i * WALL_STRIPE_ROWS,
+                        Math.min(tiles.height(), (i + 1) * WALL_STRIPE_ROWS)))).join();
+        return repairs;
+    }
+
+    /**
+     * First coordinate of region i out of count along a side of the given length. Every region
+     * is REGION_SIZE long except the last, which also takes the remainder.
+     */
+    private static int start(int i, int count, int length) {
+        return i == count ? length : i * REGION_SIZE;
+    }
+
+    private static Region generateRegion(TileGrid tiles, BitGrid floors, long seed, int x0,
+                                         int y0, int x1, int y1) {
+        Random rnd = new Random(seed);
+        List<Room> rooms = World.generateRooms(x1 - x0, y1 - y0, 0.4, rnd);
+        for (Room r : rooms) {
+            r.origin.translate(x0, y0);
+        }
+        List<Hallway> hallways = World.generateHallways(rooms, rnd);
+
+        // every room and hallway lies inside the region, so this only writes the region's tiles.
+        // REGION_SIZE is a multiple of 64, so no two regions share a word of the floor layer
+        World.carveFloors(tiles, floors, rooms, hallways);
+        return new Region(rooms, hallways);
+    }
+
+    /**
+     * Hallway across the border between two neighbouring regions, between the closest pair of
+     * rooms near the border. If Hallway.generateHallway can't fit a hallway between that pair,
+     * the next closest pairs are tried.
+     *
+     * @param low the region left of or below the border
+     * @param high the region right of or above the border
+     * @param border the first x (or y) coordinate of the high region
+     * @param vertical true if the border is a vertical line, false if horizontal
+     * @param rnd the random object to use
+     * @return the hallway, or null if none of the pairs tried fit one
+     */
+    private static Hallway stitch(Region low, Region high, int border, boolean vertical,
+                                  Random rnd) {
+        List<Room> lowRooms = nearBorder(low.rooms(), border, vertical);
+        List<Room> highRooms = nearBorder(high.rooms(), border, vertical);
+
+        List<int[]> pairs = new ArrayList<>();
+        for (int i = 0; i < lowRooms.size(); i++) {
+            for (int j = 0; j < highRooms.size(); j++) {
+                int distance = Room.distBetweenRooms(lowRooms.get(i), highRooms.get(j));
+                pairs.add(new int[]{distance, i, j});
+            }
+        }
+        pairs.sort(Comparator.<int[]>comparingInt(p -> p[0])
+                .thenComparingInt(p -> p[1]).thenComparingInt(p -> p[2]));
+
+        for (int k = 0; k < Math.min(MAX_STITCH_ATTEMPTS, pairs.size()); k++) {
+            int[] pair = pairs.get(k);
+            try {
+                return Hallway.generateHallway(lowRooms.get(pair[1]), highRooms.get(pair[2]), rnd);
+            } catch (IllegalArgumentException e) {
+                // no room for a hallway between these two; try the next pair
+            }
+        }
+        return null;
+    }
+
+    private static List<Room> nearBorder(List<Room> rooms, int border, boolean vertical) {
+        List<Room> near = new ArrayList<>();
+        for (Room r : rooms) {
+            int distance = vertical
+                    ? Math.min(Math.abs(r.getLeftX() - border), Math.abs(r.getRightX() - border))
+                    : Math.min(Math.abs(r.getBottomY() - border), Math.abs(r.getTopY() - border));
+            if (distance <= BORDER_MARGIN) {
+                near.add(r);
+            }
+        }
+        return near.isEmpty() ? rooms : near;
+    }
+
+    private static void addIfPresent(List<Hallway> hallways, Hallway h) {
+        if (h != null) {
+            hallways.add(h);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package core;
+
+import utils.BitGrid;
+
+import java.util.Arrays;
+
+/**
+ * A* search for shortest paths over a walkable layer, moving one cell up, down, left or right
+ * at a time. Cells set in the occupied layer are treated as blocked, except for the start cell,
+ * which is where the avatar doing the moving stands.
+ *
+ * Cells are identified by their index y * width + x, and everything the search tracks lives in
+ * int and byte arrays indexed by cell that are allocated once and reused for every query, so a
+ * query allocates nothing per node. Instead of clearing the arrays between queries, each query
+ * has its own number and a cell's entries only count if they were stamped with that number.
+ *
+ * Every step costs 1 and changes the manhattan distance to the target by exactly 1, so a
+ * neighbour's f score is either the f score being expanded or 2 more than it. The open set is
+ * therefore two int stacks, one for each of those scores, instead of a heap: pushing and
+ * popping are O(1), and popping the most recently pushed cell first means that among equally
+ * good cells the search keeps going deeper towards the target.
+ */
+public class PathFinder {
+    // the move that enters a cell, indexed by the direction the search took into it
+    private static final char[] MOVES = {'w', 's', 'a', 'd'};
+    private static final int[] DX = {0, 0, -1, 1};
+    private static final int[] DY = {1, -1, 0, 0};
+
+    private final BitGrid walkable;
+    private final BitGrid occupied;
+    private final int width;
+    private final int height;
+    private final int[] gScore;
+    private final int[] seen;
+    private final int[] closed;
+    private final byte[] cameFrom;
+    private int query = 0;
+    // open cells with the f score being expanded, and with that score + 2
+    private int[] current = new int[256];
+    private int currentSize = 0;
+    private int[] later = new int[256];
+    private int laterSize = 0;
+    private char[] path = new char[64];
+    private int pathLength = 0;
+
+    /**
+     * Create a path finder for a world's movement layers. The layers are read on every query,
+     * so changes to them are seen by later queries.
+     *
+     * @param walkable a bit set for every cell that can be walked on
+     * @param occupied a bit set for every cell something is standing on; the same size as
+     *                 walkable
+     */
+    public PathFinder(BitGrid walkable, BitGrid occupied) {
+        if (occupied.width() != walkable.width() || occupied.height() != walkable.height()) {
+            throw new IllegalArgumentException("Layers must be the same size");
+        }
+        this.walkable = walkable;
+        this.occupied = occupied;
+        this.width = walkable.width();
+        this.height = walkable.height();
+        int cells = width * height;
+        gScore = new int[cells];
+        seen = new int[cells];
+        closed = new int[cells];
+        cameFrom = new byte[cells];
+    }
+
+    /**
+     * Find a shortest path from (startX, startY) to (targetX, targetY). The start cell does not
+     * have to be walkable; every other cell on the path has to be walkable and unoccupied.
+     * Afterwards the path is available through moveAt and path.
+     *
+     * @param startX the x coordinate to start from
+     * @param startY the y coordinate to start from
+     * @param targetX the x coordinate to go to
+     * @param targetY the y coordinate to go to
+     * @return the number of moves on the path, or -1 if the target can't be reached
+     */
+    public int findPath(int startX, int startY, int targetX, int targetY) {
+        pathLength = 0;
+        if (!walkable.inBounds(startX, startY) || !walkable.inBounds(targetX, targetY)) {
+            return -1;
+        }
+        if (startX == targetX && startY == targetY) {
+            return 0;
+        }
+        if (!isOpen(targetX, targetY)) {
+            return -1;
+        }
+
+        query++;
+        if (query == 0) {
+            // the stamps wrapped around; forget every old one
+            Arrays.fill(seen, 0);
+            Arrays.fill(closed, 0);
+            query = 1;
+        }
+        int start = startY * width + startX;
+        int target = targetY * width + targetX;
+        seen[start] = query;
+        gScore[start] = 0;
+        int f = distance(startX, startY, targetX, targetY);
+        currentSize = 0;
+        laterSize = 0;
+        pushCurrent(start);
+
+        while (true) {
+            if (currentSize == 0) {
+                if (laterSize == 0) {
+                    return -1;
+                }
+                int[] swap = current;
+                current = later;
+                currentSize = laterSize;
+                later = swap;
+                laterSize = 0;
+                f += 2;
+            }
+            int cell = current[--currentSize];
+            if (closed[cell] == query) {
+                continue; // a stale entry for a cell already reached more cheaply
+            }
+            if (cell == target) {
+                return tracePath(target);
+            }
+            closed[cell] = query;
+
+            int x = cell % width;
+            int y = cell / width;
+            int g = gScore[cell] + 1;
+            for (int d = 0; d < 4; d++) {
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height || !isOpen(nx, ny)) {
+                    continue;
+                }
+                int next = ny * width + nx;
+                if (closed[next] == query || seen[next] == query && gScore[next] <= g) {
+                    continue;
+                }
+                seen[next] = query;
+                gScore[next] = g;
+                cameFrom[next] = (byte) d;
+                if (g + distance(nx, ny, targetX, targetY) == f) {
+                    pushCurrent(next);
+                } else {
+                    pushLater(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param i which move, from 0 to the length returned by the last findPath - 1
+     * @return the i-th move of the last path found, as one of w, a, s, d
+     */
+    public char moveAt(int i) {
+        if (i < 0 || i >= pathLength) {
+            throw new IndexOutOfBoundsException("Move " + i + " of a " + pathLength
+                    + " move path");
+        }
+        return path[i];
+    }
+
+    /**
+     * @return the moves of the last path found, as a string of w, a, s and d
+     */
+    public String path() {
+        return new String(path, 0, pathLength);
+    }
+
+    private boolean isOpen(int x, int y) {
+        long bit = 1L << x;
+        return (walkable.word(y, x >>> 6) & bit) != 0 && (occupied.word(y, x >>> 6) & bit) == 0;
+    }
+
+    private void pushCurrent(int cell) {
+        if (currentSize == current.length) {
+            current = Arrays.copyOf(current, currentSize * 2);
+        }
+        current[currentSize++] = cell;
+    }
+
+    private void pushLater(int cell) {
+        if (laterSize == later.length) {
+            later = Arrays.copyOf(later, laterSize * 2);
+        }
+        later[laterSize++] = cell;
+    }
+
+    private int tracePath(int target) {
+        int length = gScore[target];
+        if (path.length < length) {
+            path = new char[Math.max(length, path.length * 2)];
+        }
+        int cell = target;
+        for (int i = length - 1; i >= 0; i--) {
+            int d = cameFrom[cell];
+            path[i] = MOVES[d];
+            cell -= DY[d] * width + DX[d];
+        }
+        pathLength = length;
+        return length;
+    }
+
+    private static int distance(int x1, int y1, int x2, int y2) {
+        return Math.abs(x1 - x2) + Math.abs(y1 - y2);
+    }
+}
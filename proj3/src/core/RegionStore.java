@@ -0,0 +1,353 @@
+package core;
+
+import tileengine.TETile;
+import tileengine.TileGrid;
+import tileengine.Tileset;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A world's tiles kept in a file that is memory-mapped instead of read, for worlds too large to
+ * load and save whole. Saves of ordinary sessions still go through SaveFile and FileUtils.
+ *
+ * The world is split into REGION_SIZE x REGION_SIZE regions, and each region is one fixed-size
+ * block of the file holding its tile ids row by row, two bytes each. Blocks follow a header in
+ * row-major order of regions, so the block of any cell is found by arithmetic and a window of
+ * the world only touches the blocks it overlaps. Opening a file reads the header and maps the
+ * blocks; nothing else is read until a cell is used, and then the OS pages in just the blocks
+ * touched. A 16k x 16k world opens in about as long as a small one.
+ *
+ * A stored 0 means NOTHING and any other value is a tile id + 1, so a new file is all NOTHING
+ * without writing anything, and stays sparse on disk until regions are written.
+ *
+ * close() unmaps the file straight away instead of leaving the mappings to the garbage
+ * collector, so a closed file can be deleted or replaced, and a closed store throws
+ * IllegalStateException when it is used. A store is not safe for use by several threads.
+ *
+ * Nothing in Main or World reads region files; they are for worlds too large to play as a
+ * World, such as StreamingWorldGenerator output.
+ */
+public class RegionStore implements AutoCloseable {
+    public static final int REGION_SIZE = 64;
+
+    private static final int MAGIC = 0x57475247; // "WGRG"
+    private static final int VERSION = 1;
+    // a whole page, so that blocks are page aligned
+    private static final int HEADER_BYTES = 4096;
+    private static final int BLOCK_BYTES = REGION_SIZE * REGION_SIZE * 2;
+    // one mapping can't be larger than 2 GB, so the blocks are mapped in segments of this many
+    private static final int BLOCKS_PER_SEGMENT = (1 << 30) / BLOCK_BYTES;
+    private static final short NOTHING_ID = (short) Tileset.NOTHING.id();
+
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final int regionsX;
+    // null once the store is closed
+    private ShortBuffer[] segments;
+    private final MappedByteBuffer[] mappings;
+    private final short[] run = new short[REGION_SIZE];
+
+    private RegionStore(FileChannel channel, int width, int height) throws IOException {
+        this.channel = channel;
+        this.width = width;
+        this.height = height;
+        this.regionsX = Math.ceilDiv(width, REGION_SIZE);
+        long blocks = (long) regionsX * Math.ceilDiv(height, REGION_SIZE);
+        int count = (int) ((blocks + BLOCKS_PER_SEGMENT - 1) / BLOCKS_PER_SEGMENT);
+        segments = new ShortBuffer[count];
+        mappings = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long first = (long) i * BLOCKS_PER_SEGMENT;
+            long size = Math.min(BLOCKS_PER_SEGMENT, blocks - first) * BLOCK_BYTES;
+            mappings[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_BYTES + first * BLOCK_BYTES, size);
+            segments[i] = mappings[i].order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+        }
+    }
+
+    /**
+     * Create a region file for a world of NOTHING, replacing any file that is there
+     *
+     * @param file the region file
+     * @param width width of the world in tiles
+     * @param height height of the world in tiles
+     * @return the store, open for reading and writing
+     */
+    public static RegionStore create(Path file, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("World dimensions must be positive");
+        }
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height)
+                    .putInt(REGION_SIZE).clear();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            long blocks = (long) Math.ceilDiv(width, REGION_SIZE)
+                    * Math.ceilDiv(height, REGION_SIZE);
+            // writing the last byte sets the length; everything before it reads as 0
+            channel.write(ByteBuffer.allocate(1), HEADER_BYTES + blocks * BLOCK_BYTES - 1);
+            return new RegionStore(channel, width, height);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Open an existing region file for reading and writing
+     *
+     * @param file the region file
+     * @return the store
+     */
+    public static RegionStore open(Path file) {
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(20);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                continue;
+            }
+            header.flip();
+            if (header.remaining() < 20 || header.getInt() != MAGIC) {
+                channel.close();
+                throw new RuntimeException("Not a region file: " + file);
+            }
+            if (header.getInt() != VERSION) {
+                channel.close();
+                throw new RuntimeException("Unsupported region file version");
+            }
+            int width = header.getInt();
+            int height = header.getInt();
+            if (header.getInt() != REGION_SIZE || width <= 0 || height <= 0) {
+                channel.close();
+                throw new RuntimeException("Corrupt region file header");
+            }
+            return new RegionStore(channel, width, height);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Write a grid to a new region file, e.g. World.getTiles()
+     *
+     * @param file the region file
+     * @param grid the tiles to store
+     */
+    public static void save(Path file, TileGrid grid) {
+        try (RegionStore store = create(file, grid.width(), grid.height())) {
+            store.write(grid, 0, 0);
+            store.flush();
+        }
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Id of the tile at (x, y).
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return the tile id
+     */
+    public int getId(int x, int y) {
+        short stored = segment(x, y).get(offset(x, y));
+        return stored == 0 ? NOTHING_ID : stored - 1;
+    }
+
+    /**
+     * Tile at (x, y).
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return the Tileset constant stored at (x, y)
+     */
+    public TETile get(int x, int y) {
+        return Tileset.fromId(getId(x, y));
+    }
+
+    /**
+     * Sets the tile at (x, y).
+     * @param x x coordinate
+     * @param y y coordinate
+     * @param tile the tile to store; only its id is kept
+     */
+    public void set(int x, int y, TETile tile) {
+        segment(x, y).put(offset(x, y), encode((short) tile.id()));
+    }
+
+    /**
+     * Copy a grid into the world, with its bottom left corner at (x, y). The copy goes a
+     * region-row at a time, so each block written is touched in runs of up to REGION_SIZE cells.
+     *
+     * @param grid the tiles to store; it must fit inside the world at (x, y)
+     * @param x the column of the world that column 0 of the grid goes to
+     * @param y the row of the world that row 0 of the grid goes to
+     */
+    public void write(TileGrid grid, int x, int y) {
+        checkWindow(x, y, grid.width(), grid.height());
+        short[] ids = new short[grid.width()];
+        for (int row = 0; row < grid.height(); row++) {
+            grid.getIds(0, row, grid.width(), ids, 0);
+            putRow(x, y + row, ids, grid.width());
+        }
+    }
+
+    /**
+     * Replace a whole row of the world. This is a RowSink, so a StreamingWorldGenerator can
+     * rasterize straight into the store.
+     *
+     * @param y the row
+     * @param ids the tile id of each cell of the row, indexed by x; at least width() long
+     */
+    public void writeRow(int y, short[] ids) {
+        checkWindow(0, y, width, 1);
+        if (ids.length < width) {
+            throw new IllegalArgumentException("Row has " + ids.length + " ids, the world is "
+                    + width + " wide");
+        }
+        putRow(0, y, ids, width);
+    }
+
+    /**
+     * Copy a window of the world into a new grid
+     *
+     * @param x left column of the window
+     * @param y bottom row of the window
+     * @param w width of the window
+     * @param h height of the window
+     * @return a w x h grid whose cell (0, 0) is the world's (x, y)
+     */
+    public TileGrid read(int x, int y, int w, int h) {
+        checkWindow(x, y, w, h);
+        TileGrid grid = new TileGrid(w, h, Tileset.NOTHING);
+        for (int row = 0; row < h; row++) {
+            int wy = y + row;
+            for (int wx = x; wx < x + w; ) {
+                int length = Math.min(REGION_SIZE - wx % REGION_SIZE, x + w - wx);
+                segment(wx, wy).get(offset(wx, wy), run, 0, length);
+                for (int i = 0; i < length; i++) {
+                    run[i] = run[i] == 0 ? NOTHING_ID : (short) (run[i] - 1);
+                }
+                grid.setIds(wx - x, row, length, run, 0);
+                wx += length;
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Block until every change made so far is written to the file
+     */
+    public void flush() {
+        checkOpen();
+        for (MappedByteBuffer mapping : mappings) {
+            mapping.force();
+        }
+    }
+
+    /**
+     * Close the file and unmap it. Changes still reach it, but flush first to be sure they are
+     * on disk. Closing a closed store does nothing.
+     */
+    @Override
+    public void close() {
+        if (segments == null) {
+            return;
+        }
+        segments = null;
+        for (int i = 0; i < mappings.length; i++) {
+            unmap(mappings[i]);
+            mappings[i] = null;
+        }
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Release a mapping now. The JDK has no public way to do this, so this goes through
+     * sun.misc.Unsafe.invokeCleaner; where that isn't available the mapping is left to the
+     * garbage collector, as it would be without this. The buffer must not be touched after.
+     */
+    private static void unmap(MappedByteBuffer mapping) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class)
+                    .invoke(field.get(null), mapping);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            // left to the garbage collector
+        }
+    }
+
+    private void putRow(int x, int y, short[] ids, int length) {
+        for (int i = 0; i < length; ) {
+            int wx = x + i;
+            int count = Math.min(REGION_SIZE - wx % REGION_SIZE, length - i);
+            for (int k = 0; k < count; k++) {
+                run[k] = encode(ids[i + k]);
+            }
+            segment(wx, y).put(offset(wx, y), run, 0, count);
+            i += count;
+        }
+    }
+
+    private static short encode(short id) {
+        return (short) (id + 1);
+    }
+
+    private void checkWindow(int x, int y, int w, int h) {
+        if (x < 0 || y < 0 || w <= 0 || h <= 0 || x > width - w || y > height - h) {
+            throw new IndexOutOfBoundsException("Window " + w + "x" + h + " at (" + x + ", " + y
+                    + ") is outside of a " + width + "x" + height + " world");
+        }
+    }
+
+    private void checkOpen() {
+        if (segments == null) {
+            throw new IllegalStateException("Region store is closed");
+        }
+    }
+
+    private ShortBuffer segment(int x, int y) {
+        checkOpen();
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IndexOutOfBoundsException("Tile (" + x + ", " + y + ") is outside of a "
+                    + width + "x" + height + " world");
+        }
+        return segments[block(x, y) / BLOCKS_PER_SEGMENT];
+    }
+
+    private int block(int x, int y) {
+        return (y / REGION_SIZE) * regionsX + x / REGION_SIZE;
+    }
+
+    /**
+     * @return the index of (x, y) in the shorts of its segment
+     */
+    private int offset(int x, int y) {
+        int inBlock = (y % REGION_SIZE) * REGION_SIZE + x % REGION_SIZE;
+        return (block(x, y) % BLOCKS_PER_SEGMENT) * (BLOCK_BYTES / 2) + inBlock;
+    }
+}
@@ -4,6 +4,10 @@ import java.util.Iterator;
 import java.util.Random;
 import java.awt.Point;
 
+import tileengine.TETile;
+import tileengine.TileGrid;
+import utils.BitGrid;
+
 public class Room implements Iterable<Point> {
     int width;
     int height;
@@ -100,9 +104,42 @@ public class Room implements Iterable<Point> {
         return origin.x;
     }
 
+    /**
+     * Call the consumer with the coordinates of each floor tile, in the same order as iterator()
+     * but without allocating a Point per tile.
+     *
+     * @param action the consumer to call
+     */
+    public void forEachCell(CellConsumer action) {
+        for (int y = origin.y + 1; y < origin.y + height; y++) {
+            for (int x = origin.x + 1; x < origin.x + width; x++) {
+                action.accept(x, y);
+            }
+        }
+    }
+
+    /**
+     * Set every floor tile of the room in the grid to the given tile
+     *
+     * @param grid the grid to draw into
+     * @param tile the tile to draw
+     */
+    public void fill(TileGrid grid, TETile tile) {
+        grid.fillRect(origin.x + 1, origin.y + 1, width - 1, height - 1, tile);
+    }
+
+    /**
+     * Set the bit of every floor tile of the room in a layer the size of the world
+     *
+     * @param bits the layer to mark
+     */
+    public void fill(BitGrid bits) {
+        bits.fillRect(origin.x + 1, origin.y + 1, width - 1, height - 1);
+    }
 
     /**
-     * Returns an iterator over {@code Point} coordinates of floor tiles.
+     * Returns an iterator over {@code Point} coordinates of floor tiles. This allocates a Point
+     * per tile; forEachCell and fill don't.
      *
      * @return an Iterator.
      */
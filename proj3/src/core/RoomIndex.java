@@ -0,0 +1,79 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A uniform grid of buckets over the world, used to find the rooms that might overlap a given
+ * room without checking every room placed so far. Each room is stored in every bucket its
+ * rectangle touches, so a collision check only has to look at the buckets the candidate touches.
+ */
+public class RoomIndex {
+    // rooms are at most 9 tiles wide, so a room touches at most 2x2 buckets
+    private static final int CELL_SIZE = 16;
+
+    private final int columns;
+    private final int rows;
+    private final List<List<Room>> cells;
+
+    /**
+     * Create an empty index covering a world of the given size
+     * @param width the width of the world
+     * @param height the height of the world
+     */
+    public RoomIndex(int width, int height) {
+        columns = Math.max(1, (width + CELL_SIZE - 1) / CELL_SIZE);
+        rows = Math.max(1, (height + CELL_SIZE - 1) / CELL_SIZE);
+        cells = new ArrayList<>(columns * rows);
+        for (int i = 0; i < columns * rows; i++) {
+            cells.add(null);
+        }
+    }
+
+    /**
+     * Add a room to the index
+     * @param r the room to add
+     */
+    public void add(Room r) {
+        for (int cy = row(r.origin.y); cy <= row(r.origin.y + r.height - 1); cy++) {
+            for (int cx = column(r.origin.x); cx <= column(r.origin.x + r.width - 1); cx++) {
+                int i = cy * columns + cx;
+                if (cells.get(i) == null) {
+                    cells.set(i, new ArrayList<>(4));
+                }
+                cells.get(i).add(r);
+            }
+        }
+    }
+
+    /**
+     * Check if a room overlaps any room in the index. This gives the same answer as calling
+     * Room.collidesWith against every room that was added.
+     * @param r the room to check
+     * @return true if there is overlap, false otherwise
+     */
+    public boolean collidesWithAny(Room r) {
+        for (int cy = row(r.origin.y); cy <= row(r.origin.y + r.height - 1); cy++) {
+            for (int cx = column(r.origin.x); cx <= column(r.origin.x + r.width - 1); cx++) {
+                List<Room> bucket = cells.get(cy * columns + cx);
+                if (bucket == null) {
+                    continue;
+                }
+                for (Room other : bucket) {
+                    if (other.collidesWith(r)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private int column(int x) {
+        return Math.min(Math.max(x / CELL_SIZE, 0), columns - 1);
+    }
+
+    private int row(int y) {
+        return Math.min(Math.max(y / CELL_SIZE, 0), rows - 1);
+    }
+}
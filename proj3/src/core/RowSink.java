@@ -0,0 +1,15 @@
+package core;
+
+/**
+ * Receives a world one row of tile ids at a time, from row 0 upwards, e.g. to write it to a
+ * RegionStore or an image without holding the whole world in memory.
+ */
+@FunctionalInterface
+public interface RowSink {
+    /**
+     * @param y the row
+     * @param ids the tile id of each cell of the row, indexed by x. The array is reused for the
+     *            next row, so it must be copied to be kept.
+     */
+    void acceptRow(int y, short[] ids);
+}
@@ -0,0 +1,226 @@
+package core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes saved game sessions.
+ *
+ * Sessions are saved in a compact binary format: the seed and size of the world, the session's
+ * periodic checkpoints (avatar position and sight limit every CHECKPOINT_INTERVAL moves) and its
+ * whole move record packed four bits per move. Loading restores the last checkpoint and replays
+ * only the moves after it, so load time does not grow with the length of the session.
+ *
+ * The older text format, n[seed]s[moves], is still read.
+ *
+ * save and load use SAVE_FILE in the working directory unless they are given a SaveStore.
+ */
+public class SaveFile {
+    public static final String SAVE_FILE = "save.bin";
+    public static final String LEGACY_SAVE_FILE = "save.txt";
+
+    private static final int MAGIC = 0x57475356; // "WGSV"
+    private static final int VERSION = 1;
+    private static final String MOVE_CODES = "wasdt";
+
+    /**
+     * Saves the session to SAVE_FILE in the working directory.
+     *
+     * @param world the session to save
+     */
+    public static void save(World world) {
+        save(SaveStore.workingDirectory(), world);
+    }
+
+    /**
+     * Loads the session from SAVE_FILE in the working directory, or from LEGACY_SAVE_FILE if
+     * there is no SAVE_FILE.
+     *
+     * @param height the height of the world, used for text saves
+     * @param width the width of the world, used for text saves
+     * @return the restored world
+     * @throws RuntimeException if neither file can be read
+     */
+    public static World load(int height, int width) {
+        return load(SaveStore.workingDirectory(), height, width);
+    }
+
+    /**
+     * Saves the session to a store.
+     *
+     * @param store where to save
+     * @param world the session to save
+     */
+    public static void save(SaveStore store, World world) {
+        store.write(encode(world));
+    }
+
+    /**
+     * Loads the session saved in a store.
+     *
+     * @param store where to load from
+     * @param height the height of the world, used for text saves
+     * @param width the width of the world, used for text saves
+     * @return the restored world
+     * @throws RuntimeException if nothing is saved in the store or the save can't be read
+     */
+    public static World load(SaveStore store, int height, int width) {
+        return load(store, height, width, null);
+    }
+
+    /**
+     * Like load(store, height, width), but takes the generated world from a cache
+     *
+     * @param cache where to get the generated world, or null to generate it
+     */
+    static World load(SaveStore store, int height, int width, WorldCache cache) {
+        byte[] data = store.read();
+        if (data == null) {
+            throw new RuntimeException("No saved game to load");
+        }
+        return decode(data, height, width, cache);
+    }
+
+    /**
+     * Writes the session to a file in the binary format.
+     *
+     * @param filename The name of the file to write to.
+     * @param world the session to save
+     * @throws RuntimeException if an IOException occurs during the write operation.
+     */
+    public static void write(String filename, World world) {
+        try {
+            Files.write(new File(filename).toPath(), encode(world));
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Reads a session saved in either the binary or the text format.
+     *
+     * @param filename The name of the file to read from.
+     * @param height the height of the world, used for text saves; binary saves store their own
+     * @param width the width of the world, used for text saves; binary saves store their own
+     * @return the restored world
+     * @throws RuntimeException if an IOException occurs during the read operation.
+     */
+    public static World read(String filename, int height, int width) {
+        try {
+            return decode(Files.readAllBytes(new File(filename).toPath()), height, width);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Encodes the session in the binary format.
+     *
+     * @param world the session to encode
+     * @return the encoded save
+     */
+    public static byte[] encode(World world) {
+        return encode(world, world.getMoves(), world.getCheckpoints());
+    }
+
+    /**
+     * Encodes the session in the binary format with every move in a copy of its history,
+     * including undone ones that can still be redone. Decoding it applies all of them, so seek
+     * back to the history's position() afterwards. Only the world's seed and size are read, so
+     * this can run on another thread than the session's.
+     *
+     * @param world the session to encode
+     * @param history a frozen copy of the session's history
+     * @return the encoded save
+     */
+    static byte[] encodeRecorded(World world, MoveHistory history) {
+        return encode(world, history.recorded(), history.recordedCheckpoints());
+    }
+
+    private static byte[] encode(World world, String moves, List<Checkpoint> checkpoints) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + moves.length() / 2);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(world.getSeed());
+            out.writeInt(world.getWidth());
+            out.writeInt(world.getHeight());
+
+            out.writeInt(checkpoints.size());
+            for (Checkpoint c : checkpoints) {
+                out.writeInt(c.moveIndex());
+                out.writeInt(c.avatarX());
+                out.writeInt(c.avatarY());
+                out.writeBoolean(c.sightLimit());
+            }
+
+            out.writeInt(moves.length());
+            for (int i = 0; i < moves.length(); i += 2) {
+                int high = MOVE_CODES.indexOf(moves.charAt(i));
+                int low = i + 1 < moves.length() ? MOVE_CODES.indexOf(moves.charAt(i + 1)) : 0;
+                out.writeByte(high << 4 | low);
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a session saved in either the binary or the text format.
+     *
+     * @param data the encoded save
+     * @param height the height of the world, used for text saves; binary saves store their own
+     * @param width the width of the world, used for text saves; binary saves store their own
+     * @return the restored world
+     * @throws RuntimeException if the save is malformed
+     */
+    public static World decode(byte[] data, int height, int width) {
+        return decode(data, height, width, null);
+    }
+
+    private static World decode(byte[] data, int height, int width, WorldCache cache) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (data.length < 4 || in.readInt() != MAGIC) {
+                String text = new String(data, StandardCharsets.UTF_8);
+                return World.loadWorld(text.strip().toLowerCase(), height, width, cache);
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported save version " + version);
+            }
+            long seed = in.readLong();
+            int savedWidth = in.readInt();
+            int savedHeight = in.readInt();
+
+            int checkpointCount = in.readInt();
+            List<Checkpoint> checkpoints = new ArrayList<>(checkpointCount);
+            for (int i = 0; i < checkpointCount; i++) {
+                checkpoints.add(new Checkpoint(in.readInt(), in.readInt(), in.readInt(),
+                        in.readBoolean()));
+            }
+
+            int moveCount = in.readInt();
+            StringBuilder moves = new StringBuilder(moveCount);
+            for (int i = 0; i < moveCount; i += 2) {
+                int b = in.readUnsignedByte();
+                moves.append(MOVE_CODES.charAt(b >> 4));
+                if (i + 1 < moveCount) {
+                    moves.append(MOVE_CODES.charAt(b & 0xF));
+                }
+            }
+            return World.restore(seed, savedHeight, savedWidth, moves.toString(), checkpoints,
+                    cache);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Where a session's save lives. The game and AutograderBuddy save to the working directory;
+ * sessions that run side by side each get a store of their own, so that one session's ":q"
+ * can't be loaded by another's "l".
+ */
+public interface SaveStore {
+    /**
+     * @return the saved bytes, in any format SaveFile can decode, or null if nothing is saved
+     */
+    byte[] read();
+
+    /**
+     * Replace the save with the given bytes
+     * @param data the encoded save
+     */
+    void write(byte[] data);
+
+    /**
+     * @return a store that reads and writes SaveFile.SAVE_FILE in the working directory
+     */
+    static SaveStore workingDirectory() {
+        return inDirectory(Path.of(""));
+    }
+
+    /**
+     * A store that saves to SaveFile.SAVE_FILE in the given directory. Reading falls back to
+     * SaveFile.LEGACY_SAVE_FILE if there is no SAVE_FILE.
+     *
+     * @param directory the directory to save in; it must already exist
+     * @return the store
+     */
+    static SaveStore inDirectory(Path directory) {
+        return new SaveStore() {
+            @Override
+            public byte[] read() {
+                try {
+                    Path save = directory.resolve(SaveFile.SAVE_FILE);
+                    if (!Files.exists(save)) {
+                        save = directory.resolve(SaveFile.LEGACY_SAVE_FILE);
+                    }
+                    return Files.exists(save) ? Files.readAllBytes(save) : null;
+                } catch (IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+
+            @Override
+            public void write(byte[] data) {
+                try {
+                    Files.write(directory.resolve(SaveFile.SAVE_FILE), data);
+                } catch (IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return a store that keeps the save in memory, starting out empty
+     */
+    static SaveStore inMemory() {
+        return new SaveStore() {
+            private byte[] data;
+
+            @Override
+            public synchronized byte[] read() {
+                return data;
+            }
+
+            @Override
+            public synchronized void write(byte[] data) {
+                this.data = data.clone();
+            }
+        };
+    }
+}
@@ -0,0 +1,309 @@
+package core;
+
+import utils.BitGrid;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates the worlds for a range of seeds on every core and measures each one, to find
+ * pathological seeds and slow generations.
+ *
+ * usage: SeedSweep firstSeed count [width height] [--binary]
+ *
+ * One line per seed is streamed to standard output as CSV, or with --binary as fixed 52 byte
+ * big-endian records (long seed, int rooms, double fill, int hallways, double turn ratio,
+ * double reachable ratio, int dead ends, long nanos). Seeds are measured in batches and
+ * written in seed order as soon as each batch is done, with only a few batches per core held
+ * at a time, so memory does not grow with the number of seeds. When the sweep is over,
+ * histograms of the main measurements and the slowest seeds are printed to standard error.
+ */
+public class SeedSweep {
+    private static final int BATCH_SIZE = 64;
+    private static final int BATCHES_PER_THREAD = 4;
+    private static final int SLOWEST_SEEDS = 10;
+    private static final String CSV_HEADER =
+            "seed,rooms,fill,hallways,turn_ratio,reachable_ratio,dead_ends,nanos";
+
+    /**
+     * Measurements of one generated world.
+     *
+     * @param seed the seed of the world
+     * @param rooms how many rooms were placed
+     * @param fill the fraction of the world that is floor
+     * @param hallways how many hallways there are
+     * @param turnRatio the fraction of hallways that have a turn
+     * @param reachable the fraction of the floor that can be reached from the avatar
+     * @param deadEnds how many floor cells have exactly one floor neighbour
+     * @param nanos how long new World took
+     */
+    public record SeedStats(long seed, int rooms, double fill, int hallways, double turnRatio,
+                            double reachable, int deadEnds, long nanos) { }
+
+    /**
+     * Generate one world and measure it
+     *
+     * @param seed the seed of the world
+     * @param width the width of the world
+     * @param height the height of the world
+     * @return the measurements
+     */
+    public static SeedStats measure(long seed, int width, int height) {
+        long start = System.nanoTime();
+        World world = new World(seed, height, width);
+        long nanos = System.nanoTime() - start;
+
+        BitGrid floors = world.getWalkable();
+        int floorCells = floors.cardinality();
+        FloorComponents components = new FloorComponents(floors);
+        int reachable = components.size(
+                components.componentOf(world.getAvatarX(), world.getAvatarY()));
+
+        List<Hallway> hallways = world.getHallways();
+        int turns = 0;
+        for (Hallway h : hallways) {
+            if (h.hasTurn()) {
+                turns++;
+            }
+        }
+        return new SeedStats(seed, world.getRooms().size(),
+                (double) floorCells / world.area(), hallways.size(),
+                hallways.isEmpty() ? 0 : (double) turns / hallways.size(),
+                (double) reachable / floorCells, deadEnds(floors), nanos);
+    }
+
+    /**
+     * Count the floor cells with exactly one floor neighbour, 64 cells at a time
+     */
+    static int deadEnds(BitGrid floors) {
+        int count = 0;
+        int words = floors.wordsPerRow();
+        for (int y = 0; y < floors.height(); y++) {
+            for (int i = 0; i < words; i++) {
+                long f = floors.word(y, i);
+                long previous = i > 0 ? floors.word(y, i - 1) : 0;
+                long next = i + 1 < words ? floors.word(y, i + 1) : 0;
+                long left = f << 1 | previous >>> 63;
+                long right = f >>> 1 | next << 63;
+                long below = y > 0 ? floors.word(y - 1, i) : 0;
+                long above = y + 1 < floors.height() ? floors.word(y + 1, i) : 0;
+
+                // exactly one neighbour: an odd number of them, but not two in one pair
+                long odd = left ^ right ^ below ^ above;
+                long atLeastTwo = (left & right) | (below & above)
+                        | ((left ^ right) & (below ^ above));
+                count += Long.bitCount(f & odd & ~atLeastTwo);
+            }
+        }
+        return count;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        List<String> positional = new ArrayList<>();
+        boolean binary = false;
+        for (String arg : args) {
+            if (arg.equals("--binary")) {
+                binary = true;
+            } else {
+                positional.add(arg);
+            }
+        }
+        if (positional.size() != 2 && positional.size() != 4) {
+            System.err.println("usage: SeedSweep firstSeed count [width height] [--binary]");
+            System.exit(1);
+        }
+        long firstSeed = Long.parseLong(positional.get(0));
+        long count = Long.parseLong(positional.get(1));
+        int width = positional.size() == 4 ? Integer.parseInt(positional.get(2)) : 70;
+        int height = positional.size() == 4 ? Integer.parseInt(positional.get(3)) : 30;
+
+        Summary summary = sweep(firstSeed, count, width, height, binary,
+                new BufferedOutputStream(System.out, 1 << 16));
+        summary.print(System.err);
+    }
+
+    /**
+     * Measure every seed from firstSeed to firstSeed + count - 1 on all cores, writing each
+     * result to out in seed order as it becomes available
+     *
+     * @param firstSeed the first seed
+     * @param count how many seeds to measure
+     * @param width the width of the worlds
+     * @param height the height of the worlds
+     * @param binary true to write binary records, false to write CSV
+     * @param out where to write the results; it is flushed but not closed
+     * @return the aggregate statistics
+     */
+    public static Summary sweep(long firstSeed, long count, int width, int height,
+                                boolean binary, OutputStream out)
+            throws IOException, InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        DataOutputStream data = new DataOutputStream(out);
+        Summary summary = new Summary();
+        if (!binary) {
+            data.write((CSV_HEADER + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        Deque<Future<List<SeedStats>>> inFlight = new ArrayDeque<>();
+        long next = firstSeed;
+        long end = firstSeed + count;
+        try {
+            while (next < end || !inFlight.isEmpty()) {
+                // keep a bounded number of batches queued, then write the oldest one
+                while (next < end && inFlight.size() < threads * BATCHES_PER_THREAD) {
+                    long from = next;
+                    long to = Math.min(end, from + BATCH_SIZE);
+                    inFlight.add(executor.submit(() -> measureBatch(from, to, width, height)));
+                    next = to;
+                }
+                for (SeedStats stats : inFlight.remove().get()) {
+                    write(data, stats, binary);
+                    summary.add(stats);
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+            data.flush();
+        }
+        return summary;
+    }
+
+    private static List<SeedStats> measureBatch(long from, long to, int width, int height) {
+        List<SeedStats> batch = new ArrayList<>((int) (to - from));
+        for (long seed = from; seed < to; seed++) {
+            batch.add(measure(seed, width, height));
+        }
+        return batch;
+    }
+
+    private static void write(DataOutputStream out, SeedStats s, boolean binary)
+            throws IOException {
+        if (binary) {
+            out.writeLong(s.seed());
+            out.writeInt(s.rooms());
+            out.writeDouble(s.fill());
+            out.writeInt(s.hallways());
+            out.writeDouble(s.turnRatio());
+            out.writeDouble(s.reachable());
+            out.writeInt(s.deadEnds());
+            out.writeLong(s.nanos());
+        } else {
+            // Locale.ROOT so the decimal separator is always '.', whatever the default locale
+            String line = String.format(Locale.ROOT, "%d,%d,%.4f,%d,%.4f,%.4f,%d,%d\n",
+                    s.seed(), s.rooms(), s.fill(), s.hallways(), s.turnRatio(), s.reachable(),
+                    s.deadEnds(), s.nanos());
+            out.write(line.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Fixed-size aggregate of a sweep: histograms of the main measurements and the slowest
+     * seeds seen.
+     */
+    public static class Summary {
+        private final Histogram rooms = new Histogram("rooms", 0, 100, 20);
+        private final Histogram fill = new Histogram("fill ratio", 0, 1, 20);
+        private final Histogram turns = new Histogram("turn ratio", 0, 1, 10);
+        private final Histogram reachable = new Histogram("reachable ratio", 0, 1, 10);
+        private final Histogram deadEnds = new Histogram("dead ends", 0, 50, 10);
+        private final Histogram millis = new Histogram("generation ms", 0, 10, 20);
+        private final PriorityQueue<SeedStats> slowest =
+                new PriorityQueue<>((a, b) -> Long.compare(a.nanos(), b.nanos()));
+        private long seeds = 0;
+
+        void add(SeedStats s) {
+            seeds++;
+            rooms.add(s.rooms());
+            fill.add(s.fill());
+            turns.add(s.turnRatio());
+            reachable.add(s.reachable());
+            deadEnds.add(s.deadEnds());
+            millis.add(s.nanos() / 1e6);
+            slowest.add(s);
+            if (slowest.size() > SLOWEST_SEEDS) {
+                slowest.remove();
+            }
+        }
+
+        public long seeds() {
+            return seeds;
+        }
+
+        void print(PrintStream out) {
+            out.println(seeds + " seeds");
+            for (Histogram h : List.of(rooms, fill, turns, reachable, deadEnds, millis)) {
+                h.print(out);
+            }
+            List<SeedStats> slow = new ArrayList<>(slowest);
+            slow.sort((a, b) -> Long.compare(b.nanos(), a.nanos()));
+            out.println("slowest seeds:");
+            for (SeedStats s : slow) {
+                out.printf("  %d  %.2f ms%n", s.seed(), s.nanos() / 1e6);
+            }
+        }
+    }
+
+    /**
+     * Counts of values in equal-width buckets between min and max; values outside the range
+     * are counted in the first or last bucket.
+     */
+    private static class Histogram {
+        private static final int BAR_WIDTH = 40;
+        private final String name;
+        private final double min;
+        private final double max;
+        private final long[] buckets;
+        private double total = 0;
+        private long count = 0;
+        private double largest = Double.NEGATIVE_INFINITY;
+
+        Histogram(String name, double min, double max, int buckets) {
+            this.name = name;
+            this.min = min;
+            this.max = max;
+            this.buckets = new long[buckets];
+        }
+
+        void add(double value) {
+            int i = (int) ((value - min) / (max - min) * buckets.length);
+            buckets[Math.max(0, Math.min(buckets.length - 1, i))]++;
+            total += value;
+            count++;
+            largest = Math.max(largest, value);
+        }
+
+        void print(PrintStream out) {
+            out.printf("%s (mean %.3f, max %.3f)%n", name, count == 0 ? 0 : total / count,
+                    largest);
+            long most = 1;
+            for (long b : buckets) {
+                most = Math.max(most, b);
+            }
+            double step = (max - min) / buckets.length;
+            for (int i = 0; i < buckets.length; i++) {
+                if (buckets[i] == 0) {
+                    continue;
+                }
+                String bar = "#".repeat((int) Math.max(1, buckets[i] * BAR_WIDTH / most));
+                out.printf("  %8.3f %s %d%n", min + i * step, bar, buckets[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+/**
+ * Replays many input scripts at once without drawing anything, for regression checks over
+ * recorded sessions. A script is a list of inputs in the form AutograderBuddy takes
+ * ("n123swasd:q", "lwasd", ...), run in order against the script's own SaveStore, so a script's
+ * "l" loads what that same script last saved with ":q". Every script runs on its own virtual
+ * thread.
+ *
+ * Run from the command line with a file of scripts, one per line with the inputs separated by
+ * spaces, to print a line per script followed by the throughput.
+ */
+public class SessionRunner {
+
+    /**
+     * The outcome of one script.
+     *
+     * @param index the position of the script in the batch
+     * @param save the final session as World.getSave() gives it, or null if the script failed
+     * @param tileHash a hash of the tiles visible at the end, or 0 if the script failed
+     * @param nanos how long the script took to run
+     * @param error what the script failed with, or null if it succeeded
+     */
+    public record ScriptResult(int index, String save, long tileHash, long nanos,
+                               RuntimeException error) {
+        public boolean succeeded() {
+            return error == null;
+        }
+    }
+
+    /**
+     * The outcome of a batch.
+     *
+     * @param results one result per script, in the order the scripts were given
+     * @param elapsedNanos wall clock time from starting the first script to finishing the last
+     */
+    public record Report(List<ScriptResult> results, long elapsedNanos) {
+        public double scriptsPerSecond() {
+            return elapsedNanos == 0 ? 0 : results.size() * 1e9 / elapsedNanos;
+        }
+
+        public long failures() {
+            return results.stream().filter(r -> !r.succeeded()).count();
+        }
+    }
+
+    /**
+     * Run every script with its own in-memory save store
+     *
+     * @param scripts the scripts to run
+     * @return the results
+     */
+    public static Report run(List<List<String>> scripts) {
+        return run(scripts, i -> SaveStore.inMemory());
+    }
+
+    /**
+     * Run every script concurrently
+     *
+     * @param scripts the scripts to run
+     * @param stores makes the save store for the script at each index; it is called once per
+     *               script and must not return the same store for two scripts
+     * @return the results
+     */
+    public static Report run(List<List<String>> scripts, IntFunction<SaveStore> stores) {
+        long start = System.nanoTime();
+        List<Future<ScriptResult>> futures = new ArrayList<>(scripts.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < scripts.size(); i++) {
+                int index = i;
+                List<String> script = scripts.get(i);
+                futures.add(executor.submit(() -> runScript(index, script, stores.apply(index))));
+            }
+        }
+
+        List<ScriptResult> results = new ArrayList<>(futures.size());
+        for (Future<ScriptResult> f : futures) {
+            try {
+                results.add(f.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                // runScript catches everything a script can throw, so this is a bug here
+                throw new RuntimeException(e.getCause());
+            }
+        }
+        return new Report(results, System.nanoTime() - start);
+    }
+
+    /**
+     * Makes a save store in its own new directory under root for each script
+     *
+     * @param root the directory to create the script directories in
+     * @return the store factory, for run
+     */
+    public static IntFunction<SaveStore> directoryStores(Path root) {
+        return i -> {
+            try {
+                return SaveStore.inDirectory(Files.createDirectories(root.resolve("session" + i)));
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        };
+    }
+
+    private static ScriptResult runScript(int index, List<String> script, SaveStore store) {
+        long start = System.nanoTime();
+        try {
+            World world = null;
+            for (String input : script) {
+                world = AutograderBuddy.runInput(input, store);
+            }
+            if (world == null) {
+                throw new IllegalArgumentException("Script " + index + " has no inputs");
+            }
+            return new ScriptResult(index, world.getSave(), tileHash(world),
+                    System.nanoTime() - start, null);
+        } catch (RuntimeException e) {
+            return new ScriptResult(index, null, 0, System.nanoTime() - start, e);
+        }
+    }
+
+    /**
+     * FNV-1a hash of the ids of the visible tiles, column by column like getTileSet
+     */
+    private static long tileHash(World world) {
+        long hash = 0xcbf29ce484222325L;
+        for (int x = 0; x < world.getWidth(); x++) {
+            for (int y = 0; y < world.getHeight(); y++) {
+                hash = (hash ^ world.getTile(x, y).id()) * 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: SessionRunner <scripts file>");
+            System.exit(1);
+        }
+        List<List<String>> scripts = new ArrayList<>();
+        for (String line : Files.readAllLines(Path.of(args[0]))) {
+            if (!line.isBlank()) {
+                scripts.add(Arrays.asList(line.strip().split("\\s+")));
+            }
+        }
+
+        Report report = run(scripts);
+        for (ScriptResult r : report.results()) {
+            if (r.succeeded()) {
+                System.out.printf("%d ok %016x %s%n", r.index(), r.tileHash(), r.save());
+            } else {
+                System.out.printf("%d failed %s%n", r.index(), r.error());
+            }
+        }
+        System.out.printf("%d scripts, %d failed, %.1f ms, %.0f scripts/s%n",
+                report.results().size(), report.failures(), report.elapsedNanos() / 1e6,
+                report.scriptsPerSecond());
+    }
+}
@@ -0,0 +1,258 @@
+package core;
+
+import tileengine.Tileset;
+import utils.BitGrid;
+import utils.UnionFind;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates the same world as the sequential World constructor without ever holding its tiles:
+ * only the rooms and hallways are kept, as rectangles, and the tiles are rasterized a band of
+ * rows at a time into a RowSink. Peak memory is the rectangles plus one band of bits, so worlds
+ * far too large for a TileGrid can be generated and exported, e.g. into a RegionStore.
+ *
+ * Generation needs the floor layer in one place: FloorComponents.connect looks for rooms that
+ * can't be reached. Here the components come from the rectangles instead. Each room's floor
+ * and each hallway segment is one rectangle of floor, and two rectangles are in the same
+ * component if they overlap or share an edge, so a union-find over rectangles, with a grid of
+ * buckets to find the neighbours of each, gives the same components as labelling the cells.
+ *
+ * rasterize() sweeps the rectangles in order of their bottom row. Each band is carved into a
+ * BitGrid with one extra row above and below, and the walls of a row are its dilated floor
+ * minus the floor, exactly as World.surroundWithWalls finds them.
+ */
+public class StreamingWorldGenerator {
+    // rows rasterized at once
+    static final int BAND_ROWS = 64;
+    private static final int BUCKET_SIZE = 32;
+    private static final short FLOOR = (short) Tileset.FLOOR.id();
+    private static final short WALL = (short) Tileset.WALL.id();
+    private static final short NOTHING = (short) Tileset.NOTHING.id();
+    private static final short AVATAR = (short) Tileset.AVATAR.id();
+
+    private final int width;
+    private final int height;
+    private final int repairCount;
+    private final int avatarX;
+    private final int avatarY;
+    // the floor rectangles, inclusive; the rooms' come first, in the order they were placed
+    private int[] left = new int[64];
+    private int[] bottom = new int[64];
+    private int[] right = new int[64];
+    private int[] top = new int[64];
+    private int shapeCount = 0;
+
+    /**
+     * Generate the rooms and hallways of a world and choose the avatar's start, drawing from the
+     * seed in the same order as new World(seed, height, width)
+     *
+     * @param seed the seed of the world
+     * @param height the height of the world
+     * @param width the width of the world
+     */
+    public StreamingWorldGenerator(long seed, int height, int width) {
+        this.width = width;
+        this.height = height;
+        Random rnd = new Random(seed);
+        List<Room> rooms = World.generateRooms(width, height, 0.4, rnd);
+        List<Hallway> hallways = World.generateHallways(rooms, rnd);
+        repairCount = FloorComponents.connect(rooms, hallways, rnd, () -> {
+            UnionFind sets = components(rooms, hallways);
+            return FloorComponents.groupRooms(rooms, sets::find);
+        }, bridge -> { });
+
+        // keep only the rectangles, with the repair hallways
+        shapeCount = 0;
+        addShapes(rooms, hallways);
+
+        Room startRoom = rooms.get(rnd.nextInt(rooms.size()));
+        avatarX = rnd.nextInt(startRoom.origin.x + 1, startRoom.getRightX() - 1);
+        avatarY = rnd.nextInt(startRoom.origin.y + 1, startRoom.getTopY() - 1);
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int avatarX() {
+        return avatarX;
+    }
+
+    public int avatarY() {
+        return avatarY;
+    }
+
+    /**
+     * @return how many hallways FloorComponents.connect added to make every room reachable
+     */
+    public int repairCount() {
+        return repairCount;
+    }
+
+    /**
+     * Rasterize the world, avatar included, into a sink, one row at a time from row 0 upwards.
+     * The rows are the rows of new World(seed, height, width).getTiles().
+     *
+     * @param sink where the rows go
+     */
+    public void rasterize(RowSink sink) {
+        long[] order = new long[shapeCount];
+        for (int s = 0; s < shapeCount; s++) {
+            order[s] = (long) bottom[s] << 32 | s;
+        }
+        Arrays.sort(order);
+
+        int[] active = new int[64];
+        int activeCount = 0;
+        int next = 0;
+        // rows y0 - 1 to y0 + BAND_ROWS of the world, so every row of the band has both neighbours
+        BitGrid band = new BitGrid(width, BAND_ROWS + 2);
+        short[] row = new short[width];
+        for (int y0 = 0; y0 < height; y0 += BAND_ROWS) {
+            int low = y0 - 1;
+            int high = Math.min(height, y0 + BAND_ROWS);
+
+            // drop the shapes wholly below the band and pick up the ones starting in it
+            int kept = 0;
+            for (int i = 0; i < activeCount; i++) {
+                if (top[active[i]] >= low) {
+                    active[kept++] = active[i];
+                }
+            }
+            activeCount = kept;
+            while (next < shapeCount && (int) (order[next] >>> 32) <= high) {
+                if (activeCount == active.length) {
+                    active = Arrays.copyOf(active, activeCount * 2);
+                }
+                active[activeCount++] = (int) order[next++];
+            }
+
+            band.clear();
+            for (int i = 0; i < activeCount; i++) {
+                int s = active[i];
+                int from = Math.max(bottom[s], low);
+                int to = Math.min(top[s], high);
+                if (from <= to) {
+                    band.fillRect(left[s], from - low, right[s] - left[s] + 1, to - from + 1);
+                }
+            }
+
+            for (int y = y0; y < high; y++) {
+                int b = y - low;
+                Arrays.fill(row, NOTHING);
+                for (int i = 0; i < band.wordsPerRow(); i++) {
+                    long floor = band.word(b, i);
+                    long wall = band.dilatedWord(b, i) & ~floor;
+                    set(row, i, floor, FLOOR);
+                    set(row, i, wall, WALL);
+                }
+                if (y == avatarY) {
+                    row[avatarX] = AVATAR;
+                }
+                sink.acceptRow(y, row);
+            }
+        }
+    }
+
+    private static void set(short[] row, int i, long word, short id) {
+        while (word != 0) {
+            row[(i << 6) + Long.numberOfTrailingZeros(word)] = id;
+            word &= word - 1;
+        }
+    }
+
+    /**
+     * The components of the floor rectangles of the rooms and hallways; shape i is room i for
+     * every room
+     */
+    private UnionFind components(List<Room> rooms, List<Hallway> hallways) {
+        shapeCount = 0;
+        addShapes(rooms, hallways);
+        UnionFind sets = new UnionFind(shapeCount);
+
+        // every shape is listed in each bucket its rectangle grown by one cell touches, so two
+        // shapes that overlap or share an edge are both listed in some bucket
+        int columns = Math.ceilDiv(width, BUCKET_SIZE);
+        int rows = Math.ceilDiv(height, BUCKET_SIZE);
+        int[] head = new int[columns * rows];
+        Arrays.fill(head, -1);
+        int[] entryShape = new int[shapeCount * 2];
+        int[] entryNext = new int[shapeCount * 2];
+        int entries = 0;
+        for (int s = 0; s < shapeCount; s++) {
+            int cx1 = Math.min(columns - 1, (right[s] + 1) / BUCKET_SIZE);
+            int cy1 = Math.min(rows - 1, (top[s] + 1) / BUCKET_SIZE);
+            for (int cy = Math.max(0, bottom[s] - 1) / BUCKET_SIZE; cy <= cy1; cy++) {
+                for (int cx = Math.max(0, left[s] - 1) / BUCKET_SIZE; cx <= cx1; cx++) {
+                    int bucket = cy * columns + cx;
+                    for (int e = head[bucket]; e >= 0; e = entryNext[e]) {
+                        if (touch(s, entryShape[e])) {
+                            sets.union(s, entryShape[e]);
+                        }
+                    }
+                    if (entries == entryShape.length) {
+                        entryShape = Arrays.copyOf(entryShape, entries * 2);
+                        entryNext = Arrays.copyOf(entryNext, entries * 2);
+                    }
+                    entryShape[entries] = s;
+                    entryNext[entries] = head[bucket];
+                    head[bucket] = entries++;
+                }
+            }
+        }
+        return sets;
+    }
+
+    /**
+     * @return true if shapes a and b overlap or have cells side by side, which joins them into
+     * one component of floor; touching only at a corner doesn't
+     */
+    private boolean touch(int a, int b) {
+        boolean xOverlap = left[a] <= right[b] && left[b] <= right[a];
+        boolean yOverlap = bottom[a] <= top[b] && bottom[b] <= top[a];
+        boolean xTouch = left[a] <= right[b] + 1 && left[b] <= right[a] + 1;
+        boolean yTouch = bottom[a] <= top[b] + 1 && bottom[b] <= top[a] + 1;
+        return xOverlap && yTouch || yOverlap && xTouch;
+    }
+
+    private void addShapes(List<Room> rooms, List<Hallway> hallways) {
+        for (Room r : rooms) {
+            addShape(r.origin.x + 1, r.origin.y + 1, r.getRightX(), r.getTopY());
+        }
+        for (Hallway h : hallways) {
+            if (h.hasTurn()) {
+                addSegment(h.start, h.turn);
+                addSegment(h.turn, h.end);
+            } else {
+                addSegment(h.start, h.end);
+            }
+        }
+    }
+
+    private void addSegment(Point from, Point to) {
+        addShape(Math.min(from.x, to.x), Math.min(from.y, to.y), Math.max(from.x, to.x),
+                Math.max(from.y, to.y));
+    }
+
+    private void addShape(int x0, int y0, int x1, int y1) {
+        if (shapeCount == left.length) {
+            left = Arrays.copyOf(left, shapeCount * 2);
+            bottom = Arrays.copyOf(bottom, shapeCount * 2);
+            right = Arrays.copyOf(right, shapeCount * 2);
+            top = Arrays.copyOf(top, shapeCount * 2);
+        }
+        left[shapeCount] = x0;
+        bottom[shapeCount] = y0;
+        right[shapeCount] = x1;
+        top[shapeCount] = y1;
+        shapeCount++;
+    }
+}
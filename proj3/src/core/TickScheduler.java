@@ -0,0 +1,79 @@
+package core;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces a game loop at a fixed number of ticks per second. Instead of spinning on
+ * StdDraw.hasNextKeyTyped(), the loop calls awaitNextTick() once per iteration, which parks the
+ * thread until the next tick is due, so an idle game uses almost no CPU. Input is polled once per
+ * tick and frames are only drawn on ticks, which also caps the frame rate at the tick rate.
+ *
+ * The scheduler also measures input latency. A key that is handled on some tick was typed after
+ * the poll of the tick before, so the time from that earlier tick to the frame showing the result
+ * is an upper bound on how long the player waited.
+ */
+public class TickScheduler {
+    private final long tickNanos;
+    private long nextTick;
+    private long previousTick;
+    private long currentTick;
+
+    private long inputCount = 0;
+    private long totalLatency = 0;
+    private long maxLatency = 0;
+
+    /**
+     * Create a scheduler whose first tick is due immediately
+     * @param ticksPerSecond how many ticks to run per second
+     */
+    public TickScheduler(int ticksPerSecond) {
+        if (ticksPerSecond <= 0) {
+            throw new IllegalArgumentException("Tick rate must be positive");
+        }
+        this.tickNanos = 1_000_000_000L / ticksPerSecond;
+        this.nextTick = System.nanoTime();
+        this.currentTick = nextTick - tickNanos;
+    }
+
+    /**
+     * Park until the next tick is due. If the loop fell more than a tick behind, the missed
+     * ticks are skipped rather than run back to back.
+     */
+    public void awaitNextTick() {
+        long now = System.nanoTime();
+        while (now < nextTick) {
+            LockSupport.parkNanos(nextTick - now);
+            now = System.nanoTime();
+        }
+        previousTick = currentTick;
+        currentTick = now;
+        nextTick += tickNanos;
+        if (nextTick <= now) {
+            nextTick = now + tickNanos;
+        }
+    }
+
+    /**
+     * Record that input polled on this tick has just been shown on screen
+     */
+    public void recordInputShown() {
+        long latency = System.nanoTime() - previousTick;
+        inputCount++;
+        totalLatency += latency;
+        maxLatency = Math.max(maxLatency, latency);
+    }
+
+    /**
+     * @return the longest input latency recorded, in milliseconds
+     */
+    public double maxInputLatencyMillis() {
+        return maxLatency / 1e6;
+    }
+
+    /**
+     * @return the mean input latency recorded, in milliseconds, or 0 if none were recorded
+     */
+    public double averageInputLatencyMillis() {
+        return inputCount == 0 ? 0 : totalLatency / 1e6 / inputCount;
+    }
+}
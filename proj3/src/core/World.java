@@ -1,16 +1,25 @@
 package core;
 
 import tileengine.*;
+import utils.BitGrid;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
-import java.awt.Point;
+import java.util.concurrent.ForkJoinPool;
 import tileengine.TETile;
 
 public class World {
-
-    private final TETile[][] tileSet;
+    // default distance the avatar can see with the sight limit on
+    public static final int SIGHT_RADIUS = 7;
+    // a checkpoint of the session state is recorded every this many moves
+    static final int CHECKPOINT_INTERVAL = 64;
+
+    private final TileGrid tiles;
+    // cells anything can stand on, whatever tile is drawn there; fixed once generated
+    private final BitGrid walkable;
+    // cells something (so far only the avatar) is standing on
+    private final BitGrid occupied;
     private final List<Room> rooms;
     private final List<Hallway> hallways;
     private final int width;
@@ -18,228 +27,557 @@ public class World {
     private final Random rnd;
     private final Avatar avatar;
     private boolean sightLimit = false;
-    private final StringBuilder storeMoves;
+    // what the avatar sees and has seen with the sight limit on; kept up to date only while it is
+    private final FieldOfView fieldOfView;
+    private final MoveHistory history;
     private final long seed;
+    // how many hallways FloorComponents.connect added to make every room reachable
+    private final int repairCount;
+    // made on the first travelTo, since its arrays take several bytes per cell
+    private PathFinder pathFinder;
+    // where moves are reported as they happen, or null
+    private MoveJournal journal;
 
     public World(long seed, int height, int width) {
+        this(seed, height, width, null);
+    }
+
+    /**
+     * Create a world, generating it region by region on the given pool. The world is the same
+     * for a given seed no matter how many threads the pool has, but it is not the same world
+     * that the sequential constructor makes for that seed.
+     *
+     * @param seed the seed of the world
+     * @param height the height of the world
+     * @param width the width of the world
+     * @param pool the pool to generate on, or null to generate on this thread
+     */
+    public World(long seed, int height, int width, ForkJoinPool pool) {
         // instance vars
         this.rnd = new Random(seed);
         this.width = width;
         this.height = height;
         rooms = new ArrayList<>();
         hallways = new ArrayList<>();
-        storeMoves = new StringBuilder();
         this.seed = seed;
 
         // initialize with blank tiles
-        tileSet = new TETile[width][height];
-
-        fillWorldWithNothing();
-        generateRooms(0.4);
-        sortRooms();
-        generateHallways();
-        generateTileSet();
+        tiles = new TileGrid(width, height, Tileset.NOTHING);
+
+        if (pool == null) {
+            rooms.addAll(generateRooms(width, height, 0.4, rnd));
+            hallways.addAll(generateHallways(rooms, rnd));
+            walkable = new BitGrid(width, height);
+            repairCount = generateTileSet(tiles, walkable, rooms, hallways, rnd);
+        } else {
+            walkable = new BitGrid(width, height);
+            repairCount = ParallelWorldGenerator.generate(seed, tiles, walkable, rooms, hallways,
+                    pool);
+        }
+        occupied = new BitGrid(width, height);
 
         // place the avatar in a random room
         Room startRoom = rooms.get(rnd.nextInt(rooms.size()));
         int startX = rnd.nextInt(startRoom.origin.x + 1, startRoom.getRightX() - 1);
         int startY = rnd.nextInt(startRoom.origin.y + 1, startRoom.getTopY() - 1);
-        avatar = new Avatar(tileSet, startX, startY);
+        avatar = new Avatar(tiles, walkable, occupied, startX, startY);
+        history = new MoveHistory(startX, startY);
+        fieldOfView = new FieldOfView(walkable, SIGHT_RADIUS);
     }
 
-    private void fillWorldWithNothing() {
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                tileSet[x][y] = Tileset.NOTHING;
-            }
-        }
+    /**
+     * Start a new session on a copy of a freshly generated world. The copy shares the base
+     * world's rooms, hallways, walkable layer and (until the first move) tiles, so it is cheap
+     * to make; the base world must not be moved in afterwards.
+     *
+     * @param base a world with no recorded moves
+     */
+    private World(World base) {
+        this.rnd = base.rnd;
+        this.width = base.width;
+        this.height = base.height;
+        this.rooms = base.rooms;
+        this.hallways = base.hallways;
+        this.seed = base.seed;
+        this.repairCount = base.repairCount;
+        this.tiles = base.tiles.copyOnWrite();
+        this.walkable = base.walkable;
+        this.occupied = base.occupied.copy();
+        this.avatar = new Avatar(tiles, occupied, base.avatar);
+        this.history = new MoveHistory(avatar.x, avatar.y);
+        this.fieldOfView = new FieldOfView(walkable, SIGHT_RADIUS);
     }
 
-    private void generateHallways() {
-        if (rooms.isEmpty()) {
-            return;
-        }
-
-        Room currentRoom = rooms.get(0);
-        List<Room> connectedRooms = new ArrayList<>();
-        connectedRooms.add(currentRoom);
-
-        // could also extract this into a room list sorting method
-        while (connectedRooms.size() < rooms.size()) {
-            Room nearestRoom = null;
-            int minDistance = Integer.MAX_VALUE;
-
-            //find nearest unconnected room
-            for (Room room : rooms) {
-                if (!connectedRooms.contains(room)) {
-                    int distance = Room.distBetweenRooms(currentRoom, room);
-                    if (distance < minDistance) {
-                        minDistance = distance;
-                        nearestRoom = room;
-                    }
-                }
-            }
+    /**
+     * @return a new session on a copy of this world, as it was generated
+     */
+    World newSession() {
+        return new World(this);
+    }
 
-            // connect curr room to the closest room
-            if (nearestRoom != null) {
-                Hallway hallway = Hallway.generateHallway(currentRoom, nearestRoom, rnd);
-                if (hallway != null) {
-                    hallways.add(hallway);
-                    connectedRooms.add(nearestRoom);
-                    currentRoom = nearestRoom;
-                } else {
-                    break;
-                }
-            } else {
-                //no valid nearest room
-                break;
+    /**
+     * Connect the rooms with hallways along a minimum spanning tree of the room centres,
+     * as planned by HallwayPlanner
+     *
+     * @param rooms the rooms to connect
+     * @param rnd the random object to use
+     * @return the hallways, in the order they were generated
+     */
+    static List<Hallway> generateHallways(List<Room> rooms, Random rnd) {
+        List<Hallway> generated = new ArrayList<>();
+        int[] plan = HallwayPlanner.plan(rooms);
+        for (int i = 0; i < plan.length; i += 2) {
+            Room from = rooms.get(plan[i]);
+            Room to = rooms.get(plan[i + 1]);
+            try {
+                generated.add(Hallway.generateHallway(from, to, rnd));
+            } catch (IllegalArgumentException e) {
+                // no room for a hallway between these two; FloorComponents.connect repairs it
             }
-
         }
+        return generated;
     }
 
-    private void generateTileSet() {
+    /**
+     * Carve the rooms and hallways into a grid of NOTHING tiles as floors, add repair hallways
+     * if some rooms can't be reached, then surround everything with walls
+     *
+     * @param tiles the grid to draw into
+     * @param floors an empty layer the size of the grid; a bit is set for every floor cell
+     * @param rooms the rooms to draw
+     * @param hallways the hallways to draw; repair hallways are added to it
+     * @param rnd the random object to use for repairs
+     * @return how many repair hallways were added
+     */
+    static int generateTileSet(TileGrid tiles, BitGrid floors, List<Room> rooms,
+                               List<Hallway> hallways, Random rnd) {
+        carveFloors(tiles, floors, rooms, hallways);
+        int repairs = FloorComponents.connect(tiles, floors, rooms, hallways, rnd);
 
+        // fill in the walls
+        surroundWithWalls(tiles, floors, 0, tiles.height());
+        return repairs;
+    }
+
+    /**
+     * Set the tiles of the rooms and hallways to floor, and mark them in the floor layer
+     * this is a helper method for generateTileSet
+     *
+     * @param tiles the grid to draw into
+     * @param floors the floor layer of the grid, which surroundWithWalls reads
+     * @param rooms the rooms to draw
+     * @param hallways the hallways to draw
+     */
+    static void carveFloors(TileGrid tiles, BitGrid floors, List<Room> rooms,
+                            List<Hallway> hallways) {
         // fill in the rooms
         for (Room r : rooms) {
-            for (Point p : r) {
-                tileSet[p.x][p.y] = Tileset.FLOOR;
-            }
+            r.fill(tiles, Tileset.FLOOR);
+            r.fill(floors);
         }
 
         // fill in the hallways
         for (Hallway h : hallways) {
-            for (Point p : h) {
-                tileSet[p.x][p.y] = Tileset.FLOOR;
-            }
+            h.fill(tiles, Tileset.FLOOR);
+            h.fill(floors);
         }
-
-        // fill in the walls
-        surroundWithWalls();
     }
 
     /**
-     * Generate the list of rooms
+     * Generate the list of rooms. Candidates that overlap an already placed room are
+     * rejected; a RoomIndex keeps that check to the rooms near the candidate.
      *
+     * @param width the width of the world
+     * @param height the height of the world
      * @param threshold the min percentage of the world that should be filled with rooms
+     * @param rnd the random object to use
+     * @return the placed rooms, in the order they were placed
      */
-    private void generateRooms(double threshold) {
+    public static List<Room> generateRooms(int width, int height, double threshold, Random rnd) {
+        List<Room> placed = new ArrayList<>();
+        RoomIndex index = new RoomIndex(width, height);
         double filled = 0;
 
-        roomGen:
-        while (filled < threshold * area()) {
+        while (filled < threshold * width * height) {
             Room currRoom = Room.generateRoom(5, 10, width, height, rnd);
 
             // check and make sure the room is not clipping or overlapping another one
-            for (Room r : rooms) {
-                if (r.collidesWith(currRoom)) {
-                    continue roomGen;
-                }
+            if (index.collidesWithAny(currRoom)) {
+                continue;
             }
 
-            rooms.add(currRoom);
+            placed.add(currRoom);
+            index.add(currRoom);
 
             filled += currRoom.height * currRoom.width;
         }
+        return placed;
     }
 
     /**
-     * surround all non-nothing tiles with walls
+     * surround all floor tiles in rows fromY (inclusive) to toY (exclusive) with walls: every
+     * other tile next to a floor becomes a wall. Only those rows are written, so disjoint row
+     * ranges can be walled at the same time.
+     * The walls are computed from the floor layer 64 cells at a time, as dilate(floors) & ~floors,
+     * and only the wall cells are written to the grid.
      * this is a helper method for generateTileSet
+     *
+     * @param tiles the grid to wall
+     * @param floors the floor layer of the grid, as marked by carveFloors
+     * @param fromY the first row to wall
+     * @param toY one past the last row to wall
+     */
+    static void surroundWithWalls(TileGrid tiles, BitGrid floors, int fromY, int toY) {
+        if (fromY >= toY) {
+            return;
+        }
+        BitGrid walls = new BitGrid(floors.width(), toY - fromY);
+        for (int y = fromY; y < toY; y++) {
+            for (int i = 0; i < floors.wordsPerRow(); i++) {
+                walls.setWord(y - fromY, i, floors.dilatedWord(y, i) & ~floors.word(y, i));
+            }
+        }
+        tiles.setWhere(walls, fromY, Tileset.WALL);
+    }
+
+    public static World loadWorld(String input, int height, int width) {
+        return loadWorld(input, height, width, null);
+    }
+
+    /**
+     * Like loadWorld(input, height, width), but takes the generated world from a cache
+     *
+     * @param cache where to get the generated world, or null to generate it
      */
-    private void surroundWithWalls() {
+    static World loadWorld(String input, int height, int width, WorldCache cache) {
+        // input should be all lowercase
+        String seedString = input.substring(1, input.indexOf('s'));
+        long seed = Long.parseLong(seedString);
+        World world = generate(seed, height, width, cache);
+
+        for (int i = input.indexOf('s') + 1; i < input.length(); i++) {
+            char key = input.charAt(i); // assumes lowercase
+            world.replay(key);
+        }
+
+        return world;
+    }
+
+    /**
+     * Rebuild a saved session from its last checkpoint. Only the moves recorded after that
+     * checkpoint are replayed; the earlier ones are kept in the move history without replaying
+     * them, so undo, seek and getSave still cover the whole session.
+     *
+     * @param seed the seed of the world
+     * @param height the height of the world
+     * @param width the width of the world
+     * @param moves every recorded move of the session, in order
+     * @param saved the checkpoints of the session, in order of move index
+     * @param cache where to get the generated world, or null to generate it
+     * @return the restored world
+     */
+    static World restore(long seed, int height, int width, String moves,
+                         List<Checkpoint> saved, WorldCache cache) {
+        World world = generate(seed, height, width, cache);
+        world.history.append(moves);
+        for (Checkpoint c : saved) {
+            if (!world.history.addSavedCheckpoint(c)) {
+                break; // anything after a gap would have to be replayed anyway
+            }
+        }
+        world.seek(moves.length());
+        return world;
+    }
+
+    private static World generate(long seed, int height, int width, WorldCache cache) {
+        return cache == null ? new World(seed, height, width) : cache.get(seed, height, width);
+    }
+
+    /**
+     * Apply one character of a saved move record: w, a, s or d moves the avatar and t toggles
+     * the sight limit. Anything else is ignored.
+     *
+     * @param key the recorded key
+     */
+    void replay(char key) {
+        if (key == 't') {
+            toggleSightLimit();
+        } else {
+            moveAvatar(key);
+        }
+    }
+
+    /**
+     * Returns the visible tiles of the world as a TETile[][], for callers such as the autograder
+     * that need the array form. The array is built on each call, with the sight limit applied.
+     *
+     * @return a new 2D array of the tiles currently visible
+     */
+    public TETile[][] getTileSet() {
+        TETile[][] visible = new TETile[width][height];
         for (int x = 0; x < width; x++) {
             for (int y = 0; y < height; y++) {
-                if (tileSet[x][y] != Tileset.FLOOR && nextToFloor(x, y)) {
-                    tileSet[x][y] = Tileset.WALL;
-                }
+                visible[x][y] = getTile(x, y);
             }
         }
+        return visible;
     }
 
     /**
-     * check if a tile is next to a floor tile
-     * this is a helper method for surroundWithWalls
+     * Returns the visible tile at (x, y). With the sight limit on, tiles the avatar can't see
+     * (see getVisible) are NOTHING. Nothing is allocated, so this is cheap enough to call every
+     * frame.
      *
      * @param x the x coordinate of the tile
      * @param y the y coordinate of the tile
-     * @return true if the tile is next to a floor tile, false otherwise
+     * @return the tile, or NOTHING if it is out of sight
      */
-    private boolean nextToFloor(int x, int y) {
-        if (x > 0 && tileSet[x - 1][y] == Tileset.FLOOR) {
-            return true;
+    public TETile getTile(int x, int y) {
+        if (sightLimit && !fieldOfView.isVisible(x, y)) {
+            return Tileset.NOTHING;
         }
+        return tiles.get(x, y);
+    }
 
-        if (x < width - 1 && tileSet[x + 1][y] == Tileset.FLOOR) {
-            return true;
-        }
+    /**
+     * Returns the world's tile grid, ignoring the sight limit. The grid is live: it changes as
+     * the avatar moves. To draw the world as the player sees it, render only the cells of
+     * getVisible() (and getExplored(), dimmed) when isSightLimited() is true.
+     *
+     * @return the grid of all tiles
+     */
+    public TileGrid getTiles() {
+        return tiles;
+    }
+
+    /**
+     * Returns the layer of cells that can be walked on. Unlike the tile grid it doesn't change
+     * when something stands on a cell, so movement, flood fills and path searches can query it
+     * regardless of what is drawn. The layer must not be modified.
+     *
+     * @return the walkable layer
+     */
+    public BitGrid getWalkable() {
+        return walkable;
+    }
+
+    /**
+     * Returns the live layer of cells something is standing on. The layer must not be modified.
+     *
+     * @return the occupied layer
+     */
+    public BitGrid getOccupied() {
+        return occupied;
+    }
+
+    /**
+     * @return true if (x, y) is in the world, walkable and not occupied
+     */
+    public boolean isOpen(int x, int y) {
+        return walkable.inBounds(x, y) && walkable.get(x, y) && !occupied.get(x, y);
+    }
+
+    public boolean isSightLimited() {
+        return sightLimit;
+    }
+
+    public int getAvatarX() {
+        return avatar.x;
+    }
+
+    public int getAvatarY() {
+        return avatar.y;
+    }
+
+    /**
+     * Returns the live layer of cells the avatar can see: the cells within the sight radius
+     * that no wall hides. It is only kept up to date while the sight limit is on.
+     *
+     * @return the visible layer
+     */
+    public BitGrid getVisible() {
+        return fieldOfView.visible();
+    }
 
-        if (y > 0 && tileSet[x][y - 1] == Tileset.FLOOR) {
-            return true;
+    /**
+     * Returns the live layer of every cell the avatar has seen with the sight limit on this
+     * session, for drawing remembered tiles. It isn't saved, so a loaded session starts with
+     * only what is visible from the last checkpoint onwards.
+     *
+     * @return the explored layer
+     */
+    public BitGrid getExplored() {
+        return fieldOfView.explored();
+    }
+
+    public int getSightRadius() {
+        return fieldOfView.radius();
+    }
+
+    /**
+     * Changes how far the avatar can see with the sight limit on. This is a display setting
+     * and is not recorded in the save.
+     *
+     * @param radius the new sight radius; at least 0
+     */
+    public void setSightRadius(int radius) {
+        fieldOfView.setRadius(radius);
+        updateSight();
+    }
+
+    public void moveAvatar(char key) {
+        if (avatar.move(key)) {
+            recordMove(key);
+            updateSight();
         }
+    }
 
-        if (y < height - 1 && tileSet[x][y + 1] == Tileset.FLOOR) {
-            return true;
+    /**
+     * Recompute what the avatar sees, if the sight limit is on. This only looks at the cells
+     * within the sight radius, so it is cheap enough to do after every move.
+     */
+    private void updateSight() {
+        if (sightLimit) {
+            fieldOfView.compute(avatar.x, avatar.y);
         }
+    }
 
-        return false;
+    /**
+     * Walk the avatar along a shortest path to (x, y). Each step goes through moveAvatar, so
+     * the moves are recorded like typed ones and the session still replays from its save.
+     *
+     * @param x the x coordinate to go to
+     * @param y the y coordinate to go to
+     * @return true if the avatar got there, false if there is no path and it didn't move
+     */
+    public boolean travelTo(int x, int y) {
+        if (pathFinder == null) {
+            pathFinder = new PathFinder(walkable, occupied);
+        }
+        int moves = pathFinder.findPath(avatar.x, avatar.y, x, y);
+        if (moves < 0) {
+            return false;
+        }
+        for (int i = 0; i < moves; i++) {
+            moveAvatar(pathFinder.moveAt(i));
+        }
+        return true;
     }
 
-    private void sortRooms() {
-        rooms.sort(Room::distBetweenRooms);
+    private void recordMove(char key) {
+        history.record(key);
+        checkpointIfDue();
+        if (journal != null) {
+            journal.recordMove(key);
+        }
     }
 
-    public static World loadWorld(String input, int height, int width) {
-        // input should be all lowercase
-        String seedString = input.substring(1, input.indexOf('s'));
-        long seed = Long.parseLong(seedString);
-        World world = new World(seed, height, width);
+    /**
+     * Report every recorded move, undo, redo and seek from now on to the journal
+     *
+     * @param journal the journal, or null to stop reporting
+     */
+    void attachJournal(MoveJournal journal) {
+        this.journal = journal;
+    }
 
-        for (int i = input.indexOf('s') + 1; i < input.length(); i++) {
-            char key = input.charAt(i); // assumes lowercase
-            world.moveAvatar(key);
+    private void checkpointIfDue() {
+        if (history.needsCheckpoint()) {
+            history.addCheckpoint(avatar.x, avatar.y, sightLimit);
         }
+    }
 
-        return world;
+    /**
+     * Apply a recorded move without recording it again
+     */
+    private void apply(char key) {
+        if (key == 't') {
+            sightLimit = !sightLimit;
+        } else {
+            avatar.move(key);
+        }
     }
 
-    public TETile[][] getTileSet() {
-        if (!sightLimit) {
-            return tileSet;
+    /**
+     * Take back the last applied move, avatar move or sight toggle. It can be redone until a
+     * new move is made.
+     *
+     * @return true if there was a move to undo
+     */
+    public boolean undoMove() {
+        if (!history.canUndo()) {
+            return false;
         }
-        TETile[][] limitedSet = new TETile[width][height];
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                limitedSet[x][y] = distanceFromAvatar(x, y) < 8 ? tileSet[x][y] : Tileset.NOTHING;
-            }
+        switch (history.undo()) {
+            case 'w' -> avatar.move('s');
+            case 's' -> avatar.move('w');
+            case 'a' -> avatar.move('d');
+            case 'd' -> avatar.move('a');
+            case 't' -> sightLimit = !sightLimit;
+            default -> throw new IllegalStateException("Unknown move in history");
         }
-        return limitedSet;
+        updateSight();
+        if (journal != null) {
+            journal.recordUndo();
+        }
+        return true;
     }
 
-    private int distanceFromAvatar(int x, int y) {
-        return Math.abs(avatar.x - x) + Math.abs(avatar.y - y);
+    /**
+     * Apply the last undone move again
+     *
+     * @return true if there was a move to redo
+     */
+    public boolean redoMove() {
+        if (!history.canRedo()) {
+            return false;
+        }
+        apply(history.redo());
+        checkpointIfDue();
+        updateSight();
+        if (journal != null) {
+            journal.recordRedo();
+        }
+        return true;
     }
 
-    public void moveAvatar(char key) {
-        if (avatar.move(key)) {
-            storeMoves.append(key);
+    /**
+     * Go to the state after the given number of recorded moves, as if moves had been undone or
+     * redone until then. The state is restored from the nearest checkpoint at or before the
+     * move, so at most CHECKPOINT_INTERVAL - 1 moves are applied however long the session is.
+     *
+     * @param moveIndex how many recorded moves to have applied, from 0 to
+     *                  getRecordedMoveCount()
+     */
+    public void seek(int moveIndex) {
+        int k = history.checkpointBefore(moveIndex);
+        history.moveToCheckpoint(k);
+        avatar.placeAt(history.checkpointX(k), history.checkpointY(k));
+        sightLimit = history.checkpointSight(k);
+        while (history.position() < moveIndex) {
+            apply(history.redo());
+            checkpointIfDue();
         }
-    }
-    
-    public void undoMove() {
-        if (!storeMoves.isEmpty()) {
-            char lastKey = storeMoves.charAt(storeMoves.length() - 1);
-            storeMoves.deleteCharAt(storeMoves.length() - 1);
-            switch (lastKey) {
-                case 'w' -> avatar.move('s');
-                case 's' -> avatar.move('w');
-                case 'a' -> avatar.move('d');
-                case 'd' -> avatar.move('a');
-                default -> System.out.println("Invalid key");
-            }
+        updateSight();
+        if (journal != null) {
+            journal.recordSeek(moveIndex);
         }
     }
-    
+
+    /**
+     * @return how many recorded moves are applied; undo and redo move this back and forth
+     */
+    public int getMovePosition() {
+        return history.position();
+    }
+
+    /**
+     * @return how many moves are recorded, including undone ones that can still be redone
+     */
+    public int getRecordedMoveCount() {
+        return history.size();
+    }
+
     public int getWidth() {
         return width;
     }
@@ -251,13 +589,61 @@ public class World {
     }
 
     public void toggleSightLimit() {
-        storeMoves.append('t');
         sightLimit = !sightLimit;
+        recordMove('t');
+        updateSight();
+    }
+
+    /**
+     * @return the rooms of the world, in the order they were placed
+     */
+    List<Room> getRooms() {
+        return rooms;
+    }
+
+    /**
+     * @return the hallways of the world, including repair and stitching hallways
+     */
+    List<Hallway> getHallways() {
+        return hallways;
+    }
+
+    /**
+     * @return how many hallways had to be added after generation so that every room can be
+     * reached; usually 0
+     */
+    public int getRepairCount() {
+        return repairCount;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return every applied move of the session: successful avatar moves and sight toggles
+     */
+    String getMoves() {
+        return history.applied();
+    }
+
+    /**
+     * @return the checkpoints within the applied moves, in order of move index, not counting
+     * the start of the session
+     */
+    List<Checkpoint> getCheckpoints() {
+        return history.savedCheckpoints();
+    }
+
+    /**
+     * @return a read-only copy of the move history as it is now, taken in constant time; release
+     * it once done reading
+     */
+    MoveHistory freezeHistory() {
+        return history.freeze();
     }
 
     public String getSave() {
-        StringBuilder out = new StringBuilder(storeMoves);
-        out.insert(0, 's').insert(0, seed).insert(0, 'n');
-        return out.toString();
+        return "n" + seed + "s" + history.applied();
     }
 }
@@ -0,0 +1,155 @@
+package core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, thread-safe cache of generated worlds, keyed by seed and size. Replaying an input
+ * string only needs the world as it was generated plus the moves, so inputs that share a seed
+ * can share one generated world: get() hands out a new session on a copy-on-write copy of the
+ * cached world instead of generating it again.
+ *
+ * When the cache is full the least recently used world is evicted. A world that is being
+ * generated is already in the cache, so threads that ask for it at the same time wait for that
+ * one generation rather than each starting their own.
+ */
+public class WorldCache {
+    // worlds the shared cache keeps; a 70x30 world is a few kilobytes of tiles and rooms
+    private static final int SHARED_CAPACITY = 64;
+    private static final WorldCache SHARED = new WorldCache(SHARED_CAPACITY);
+
+    private record Key(long seed, int height, int width) { }
+
+    private final int capacity;
+    private final LinkedHashMap<Key, CompletableFuture<World>> worlds;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Create an empty cache
+     * @param capacity the most worlds to keep at once
+     */
+    public WorldCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.worlds = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CompletableFuture<World>> eldest) {
+                if (size() > WorldCache.this.capacity) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return the cache AutograderBuddy replays inputs with. It only ever holds the 70x30
+     * worlds of the autograder; Main and the public loading methods of World and SaveFile
+     * generate their worlds instead, since they may be far larger.
+     */
+    public static WorldCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Start a new session on the world with the given seed and size, generating the world only
+     * if it is not already cached.
+     *
+     * @param seed the seed of the world
+     * @param height the height of the world
+     * @param width the width of the world
+     * @return a new world with no moves, independent of every other session
+     */
+    public World get(long seed, int height, int width) {
+        Key key = new Key(seed, height, width);
+        CompletableFuture<World> base;
+        boolean generate = false;
+        synchronized (worlds) {
+            base = worlds.get(key);
+            if (base == null) {
+                base = new CompletableFuture<>();
+                worlds.put(key, base);
+                generate = true;
+            }
+        }
+
+        if (generate) {
+            misses.incrementAndGet();
+            try {
+                base.complete(new World(seed, height, width));
+            } catch (RuntimeException | Error e) {
+                // don't keep the failure around; the next caller tries again
+                synchronized (worlds) {
+                    worlds.remove(key, base);
+                }
+                base.completeExceptionally(e);
+                throw e;
+            }
+        } else {
+            hits.incrementAndGet();
+        }
+        try {
+            return base.join().newSession();
+        } catch (CompletionException e) {
+            // another thread's generation failed; rethrow what it threw
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Remove every cached world. The counters are kept.
+     */
+    public void clear() {
+        synchronized (worlds) {
+            worlds.clear();
+        }
+    }
+
+    /**
+     * @return how many worlds are cached right now
+     */
+    public int size() {
+        synchronized (worlds) {
+            return worlds.size();
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return how many calls to get() found their world in the cache
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * @return how many calls to get() had to generate their world
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * @return how many worlds have been evicted to stay within capacity
+     */
+    public long evictions() {
+        return evictions.get();
+    }
+}
@@ -0,0 +1,142 @@
+package tileengine;
+
+/**
+ * The window-sized part of a world that is on screen, for worlds larger than the window.
+ *
+ * The camera shows width x height cells with its bottom left cell at (x(), y()), and keeps that
+ * window inside the world: near an edge it stops scrolling instead of showing cells past it.
+ * follow() only sets where the camera should go; each update() then moves it part of the way
+ * there, so a long jump (a click-to-travel, a seek) glides over a few frames, slowing down as it
+ * arrives, instead of cutting. The camera moves a whole cell at a time, so TERenderer can keep
+ * redrawing only the cells whose tile changed on screen.
+ */
+public class Camera {
+    // each update covers this fraction of the remaining distance, and at least one cell
+    private static final int SCROLL_DIVISOR = 4;
+
+    private final int width;
+    private final int height;
+    private final int worldWidth;
+    private final int worldHeight;
+    private int x;
+    private int y;
+    private int targetX;
+    private int targetY;
+
+    /**
+     * Create a camera at the bottom left corner of the world
+     * @param width width of the window in tiles
+     * @param height height of the window in tiles
+     * @param worldWidth width of the world in tiles
+     * @param worldHeight height of the world in tiles
+     */
+    public Camera(int width, int height, int worldWidth, int worldHeight) {
+        if (width <= 0 || height <= 0 || worldWidth <= 0 || worldHeight <= 0) {
+            throw new IllegalArgumentException("Window and world dimensions must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    /**
+     * @return the world x coordinate of the left column of the window
+     */
+    public int x() {
+        return x;
+    }
+
+    /**
+     * @return the world y coordinate of the bottom row of the window
+     */
+    public int y() {
+        return y;
+    }
+
+    /**
+     * Start scrolling towards the window centered on (centerX, centerY), clamped to the world
+     * @param centerX x coordinate to center on, usually the avatar's
+     * @param centerY y coordinate to center on
+     */
+    public void follow(int centerX, int centerY) {
+        targetX = clamp(centerX - width / 2, worldWidth - width);
+        targetY = clamp(centerY - height / 2, worldHeight - height);
+    }
+
+    /**
+     * Center on (centerX, centerY) at once, without scrolling, e.g. for the first frame
+     * @param centerX x coordinate to center on
+     * @param centerY y coordinate to center on
+     */
+    public void jumpTo(int centerX, int centerY) {
+        follow(centerX, centerY);
+        x = targetX;
+        y = targetY;
+    }
+
+    /**
+     * Scroll one step towards where follow() last pointed the camera. Call once per frame.
+     * @return true if the camera moved, so the frame has to be drawn
+     */
+    public boolean update() {
+        if (x == targetX && y == targetY) {
+            return false;
+        }
+        x += step(targetX - x);
+        y += step(targetY - y);
+        return true;
+    }
+
+    /**
+     * @return true if the camera has not reached where follow() last pointed it
+     */
+    public boolean isScrolling() {
+        return x != targetX || y != targetY;
+    }
+
+    /**
+     * @param screenX an x coordinate on screen, in tiles from the left edge of the window
+     * @return the world x coordinate of the cell there
+     */
+    public int worldX(double screenX) {
+        return x + (int) Math.floor(screenX);
+    }
+
+    /**
+     * @param screenY a y coordinate on screen, in tiles from the bottom edge of the window
+     * @return the world y coordinate of the cell there
+     */
+    public int worldY(double screenY) {
+        return y + (int) Math.floor(screenY);
+    }
+
+    /**
+     * @return true if the point on screen is inside the window and over a cell of the world;
+     * a world smaller than the window leaves the rest of the window empty
+     */
+    public boolean showsWorldAt(double screenX, double screenY) {
+        return screenX >= 0 && screenX < width && screenY >= 0 && screenY < height
+                && worldX(screenX) < worldWidth && worldY(screenY) < worldHeight;
+    }
+
+    private static int clamp(int origin, int maxOrigin) {
+        return Math.max(0, Math.min(origin, maxOrigin));
+    }
+
+    private static int step(int distance) {
+        if (distance == 0) {
+            return 0;
+        }
+        int step = Math.max(1, Math.abs(distance) / SCROLL_DIVISOR);
+        return distance > 0 ? step : -step;
+    }
+}
@@ -1,9 +1,13 @@
 package tileengine;
 
 import edu.princeton.cs.algs4.StdDraw;
+import utils.BitGrid;
 
 import java.awt.Color;
 import java.awt.Font;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
  * Utility class for rendering tiles. You do not need to modify this file. You're welcome
@@ -13,11 +17,36 @@ import java.awt.Font;
  */
 public class TERenderer {
     private static final int TILE_SIZE = 16;
+    // marks an id in lastFrame as drawn dimmed, for explored cells that aren't visible
+    private static final int DIMMED = 1 << 14;
+    // how much of each color channel dimmed tiles keep
+    private static final double DIM_FACTOR = 0.35;
+    // drawn over image tiles to dim them, since their images can't be recolored
+    private static final Color DIM_OVERLAY = new Color(0, 0, 0, 166);
     private int width;
     private int height;
     private int xOffset;
     private int yOffset;
 
+    // tile ids of the last frame drawn by renderFrame(TileGrid), indexed by cell of the window,
+    // or null if the next frame has to be drawn from scratch; -1 marks a cell to be redrawn
+    private short[] lastFrame;
+    private int lastWidth;
+    private int tilesDrawn;
+    // the grid cell shown at the bottom left of the window in the current frame
+    private int viewX;
+    private int viewY;
+    // whether the last frame was drawn by the sight limited renderFrame, with every visible cell
+    // within sightRadius of (sightX, sightY) on both axes, and neither the window moved nor
+    // any cells invalidated since
+    private boolean sightFrameValid;
+    private int sightX;
+    private int sightY;
+    private int sightRadius;
+
+    // the dimmed copy of each tile that has been drawn dimmed
+    private final Map<TETile, TETile> dimmedTiles = new IdentityHashMap<>();
+
     /**
      * Same functionality as the other initialization method. The only difference is that the xOff
      * and yOff parameters will change where the renderFrame method starts drawing. For example,
@@ -41,6 +70,7 @@ public class TERenderer {
 
         StdDraw.enableDoubleBuffering();
         StdDraw.show();
+        lastFrame = null;
     }
 
     /**
@@ -86,6 +116,7 @@ public class TERenderer {
         StdDraw.clear(new Color(0, 0, 0));
         drawTiles(world);
         StdDraw.show();
+        lastFrame = null;
     }
 
     /**
@@ -106,6 +137,236 @@ public class TERenderer {
         }
     }
 
+    /**
+     * Same as renderFrame(TETile[][]), but for a TileGrid. Cell (x, y) of the grid is drawn at
+     * position (xOffset + x, yOffset + y).
+     *
+     * The renderer remembers the tile ids of the frame it last drew. If the grid has the same
+     * size as that frame, the canvas is not cleared and only the cells whose id changed, or that
+     * were passed to invalidate, are drawn again. Anything else drawn on the canvas over the grid
+     * since the last frame (menus, StdDraw.clear) needs invalidate or invalidateAll to be erased.
+     * @param grid the grid of tiles to render
+     */
+    public void renderFrame(TileGrid grid) {
+        renderWindow(grid, 0, 0, grid.width(), grid.height());
+    }
+
+    /**
+     * Same as renderFrame(TileGrid), but only the part of the grid the camera shows is drawn,
+     * with the camera's bottom left cell at (xOffset, yOffset). The cost of a frame depends on
+     * the size of the window, not of the grid. When the camera has moved since the last frame,
+     * the window is compared with what was drawn at each position on screen, so scrolling over
+     * floor and empty space redraws only the cells whose tile on screen changed.
+     * @param grid the grid of tiles to render
+     * @param camera which part of the grid to show; made for a world the size of the grid
+     */
+    public void renderFrame(TileGrid grid, Camera camera) {
+        renderWindow(grid, camera.x(), camera.y(), windowWidth(grid, camera),
+                windowHeight(grid, camera));
+    }
+
+    private void renderWindow(TileGrid grid, int x0, int y0, int w, int h) {
+        startFrame(x0, y0, w, h);
+        for (int y = 0; y < h; y += 1) {
+            for (int x = 0; x < w; x += 1) {
+                drawIfChanged(x, y, grid.getId(x0 + x, y0 + y));
+            }
+        }
+        sightFrameValid = false;
+        StdDraw.show();
+    }
+
+    /**
+     * Same as renderFrame(TileGrid), except that only the cells set in visible are shown as they
+     * are. Cells set in explored but not in visible are drawn dimmed, and every other cell is
+     * drawn as NOTHING.
+     *
+     * Every visible cell must be within radius of (centerX, centerY) on both axes. When the
+     * previous frame was also drawn this way, only the squares of cells within radius of the
+     * old and the new center are looked at, so the cost of a frame depends on the radius and not
+     * on the size of the grid. Explored cells outside those squares are assumed to be drawn as
+     * they were, which holds as long as cells only become explored by being visible.
+     * @param grid the grid of tiles to render
+     * @param visible the cells that are visible, the same size as the grid
+     * @param explored the cells that have been seen, the same size as the grid
+     * @param centerX x coordinate of the center of the visible area
+     * @param centerY y coordinate of the center of the visible area
+     * @param radius how far from the center on either axis tiles can be visible
+     */
+    public void renderFrame(TileGrid grid, BitGrid visible, BitGrid explored, int centerX,
+                            int centerY, int radius) {
+        renderSightWindow(grid, visible, explored, centerX, centerY, radius, 0, 0, grid.width(),
+                grid.height());
+    }
+
+    /**
+     * The sight limited renderFrame, drawing only the part of the grid the camera shows. A frame
+     * after the camera moved looks at the whole window; otherwise only the squares around the
+     * old and new center are looked at, as in the other sight limited renderFrame.
+     * @param grid the grid of tiles to render
+     * @param visible the cells that are visible, the same size as the grid
+     * @param explored the cells that have been seen, the same size as the grid
+     * @param centerX x coordinate of the center of the visible area
+     * @param centerY y coordinate of the center of the visible area
+     * @param radius how far from the center on either axis tiles can be visible
+     * @param camera which part of the grid to show; made for a world the size of the grid
+     */
+    public void renderFrame(TileGrid grid, BitGrid visible, BitGrid explored, int centerX,
+                            int centerY, int radius, Camera camera) {
+        renderSightWindow(grid, visible, explored, centerX, centerY, radius, camera.x(),
+                camera.y(), windowWidth(grid, camera), windowHeight(grid, camera));
+    }
+
+    private void renderSightWindow(TileGrid grid, BitGrid visible, BitGrid explored,
+                                   int centerX, int centerY, int radius, int x0, int y0, int w,
+                                   int h) {
+        boolean fresh = startFrame(x0, y0, w, h);
+        if (fresh || !sightFrameValid) {
+            redrawWithin(grid, visible, explored, x0, y0, x0 + w - 1, y0 + h - 1);
+        } else {
+            // cells leaving the visible area, then cells in it
+            redrawWithin(grid, visible, explored, sightX - sightRadius, sightY - sightRadius,
+                    sightX + sightRadius, sightY + sightRadius);
+            redrawWithin(grid, visible, explored, centerX - radius, centerY - radius,
+                    centerX + radius, centerY + radius);
+        }
+        sightFrameValid = true;
+        sightX = centerX;
+        sightY = centerY;
+        sightRadius = radius;
+        StdDraw.show();
+    }
+
+    private static int windowWidth(TileGrid grid, Camera camera) {
+        return Math.min(camera.width(), grid.width() - camera.x());
+    }
+
+    private static int windowHeight(TileGrid grid, Camera camera) {
+        return Math.min(camera.height(), grid.height() - camera.y());
+    }
+
+    /**
+     * Redraws the cells from (x0, y0) to (x1, y1) of the grid, clipped to the window, that differ
+     * from the last frame
+     */
+    private void redrawWithin(TileGrid grid, BitGrid visible, BitGrid explored, int x0, int y0,
+                              int x1, int y1) {
+        int windowTop = viewY + lastFrame.length / lastWidth - 1;
+        int windowRight = viewX + lastWidth - 1;
+        for (int y = Math.max(y0, viewY); y <= Math.min(y1, windowTop); y += 1) {
+            for (int x = Math.max(x0, viewX); x <= Math.min(x1, windowRight); x += 1) {
+                int id;
+                if (visible.get(x, y)) {
+                    id = grid.getId(x, y);
+                } else if (explored.get(x, y)) {
+                    id = grid.getId(x, y) | DIMMED;
+                } else {
+                    id = Tileset.NOTHING.id();
+                }
+                drawIfChanged(x - viewX, y - viewY, id);
+            }
+        }
+    }
+
+    /**
+     * Gets the last frame ready for drawing a w x h window of a grid with its bottom left cell
+     * at (x0, y0), clearing the canvas if the last frame can't be reused.
+     * @return true if the canvas was cleared
+     */
+    private boolean startFrame(int x0, int y0, int w, int h) {
+        tilesDrawn = 0;
+        if (x0 != viewX || y0 != viewY) {
+            sightFrameValid = false;
+        }
+        viewX = x0;
+        viewY = y0;
+        if (lastFrame != null && lastWidth == w && lastFrame.length == w * h) {
+            return false;
+        }
+        StdDraw.clear(new Color(0, 0, 0));
+        lastFrame = new short[w * h];
+        lastWidth = w;
+        Arrays.fill(lastFrame, (short) -1);
+        sightFrameValid = false;
+        return true;
+    }
+
+    private void drawIfChanged(int x, int y, int id) {
+        int i = y * lastWidth + x;
+        if (lastFrame[i] != id) {
+            if ((id & DIMMED) != 0) {
+                drawDimmed(Tileset.fromId(id & ~DIMMED), x + xOffset, y + yOffset);
+            } else {
+                Tileset.fromId(id).draw(x + xOffset, y + yOffset);
+            }
+            lastFrame[i] = (short) id;
+            tilesDrawn += 1;
+        }
+    }
+
+    /**
+     * Draws a tile darkened, the way remembered but no longer visible tiles are shown
+     */
+    private void drawDimmed(TETile tile, int x, int y) {
+        dimmedTiles.computeIfAbsent(tile, t -> TETile.dimmed(t, DIM_FACTOR)).draw(x, y);
+        if (tile.filepath() != null) {
+            StdDraw.setPenColor(DIM_OVERLAY);
+            StdDraw.filledSquare(x + 0.5, y + 0.5, 0.5);
+        }
+    }
+
+    /**
+     * Marks a rectangle of cells to be drawn again by the next renderFrame(TileGrid), even if
+     * their tiles did not change. The rectangle is in cells of the window, counted from its
+     * bottom left corner (grid cells, when the whole grid is shown), and is clipped to it.
+     * @param x left column of the rectangle
+     * @param y bottom row of the rectangle
+     * @param w width of the rectangle in tiles
+     * @param h height of the rectangle in tiles
+     */
+    public void invalidate(int x, int y, int w, int h) {
+        if (lastFrame == null) {
+            return;
+        }
+        sightFrameValid = false;
+        int numYTiles = lastFrame.length / lastWidth;
+        for (int cy = Math.max(y, 0); cy < Math.min(y + h, numYTiles); cy += 1) {
+            int row = cy * lastWidth;
+            for (int cx = Math.max(x, 0); cx < Math.min(x + w, lastWidth); cx += 1) {
+                lastFrame[row + cx] = -1;
+            }
+        }
+    }
+
+    /**
+     * Makes the next renderFrame(TileGrid) clear the canvas and draw every tile.
+     */
+    public void invalidateAll() {
+        lastFrame = null;
+    }
+
+    /**
+     * Number of tiles drawn by the last call to renderFrame(TileGrid). Handy for checking that
+     * frames only redraw what changed.
+     * @return the number of tiles drawn
+     */
+    public int tilesDrawnLastFrame() {
+        return tilesDrawn;
+    }
+
+    /**
+     * Draws all tiles of the grid without clearing the canvas or showing the tiles. The grid is
+     * walked row by row, in the order its ids are stored.
+     * @param grid the grid of tiles to render
+     */
+    public void drawTiles(TileGrid grid) {
+        for (int y = 0; y < grid.height(); y += 1) {
+            for (int x = 0; x < grid.width(); x += 1) {
+                grid.get(x, y).draw(x + xOffset, y + yOffset);
+            }
+        }
+    }
+
     /**
      * Resets the font to default settings. You should call this method before drawing any tiles
      * if you changed the pen settings.
@@ -126,6 +126,15 @@ public class TETile {
         return description;
     }
 
+    /**
+     * Path to the image drawn for this tile, or null if it is drawn as a character. Used by
+     * TERenderer to dim image tiles, whose images can't be recolored.
+     * @return the image path
+     */
+    String filepath() {
+        return filepath;
+    }
+
     /**
      * ID number of the tile. Used for equality comparisons.
      * @return id of the tile
@@ -155,6 +164,23 @@ public class TETile {
         return new TETile(t, c);
     }
 
+    /**
+     * Creates a copy of the given tile with darker text and background colors, for drawing
+     * tiles that have been seen but are no longer visible. A tile drawn from an image keeps
+     * its image.
+     * @param t the tile to copy
+     * @param factor how much of each color channel to keep, from 0 to 1
+     */
+    public static TETile dimmed(TETile t, double factor) {
+        return new TETile(t.character, scaled(t.textColor, factor),
+                scaled(t.backgroundColor, factor), t.description, t.filepath, t.id);
+    }
+
+    private static Color scaled(Color c, double factor) {
+        return new Color((int) (c.getRed() * factor), (int) (c.getGreen() * factor),
+                (int) (c.getBlue() * factor), c.getAlpha());
+    }
+
     private static int newColorValue(int v, int dv, Random r) {
         int rawNewValue = v + RandomUtils.uniform(r, -dv, dv + 1);
 
@@ -0,0 +1,258 @@
+package tileengine;
+
+import utils.BitGrid;
+
+import java.util.Arrays;
+
+/**
+ * A width x height grid of tiles. Instead of a TETile[][] of object references, the grid stores
+ * the id of each tile in one flat short[] in row-major order (index = y * width + x), and looks
+ * tiles back up through Tileset.fromId. This takes 2 bytes per cell instead of a reference, and
+ * passes over the whole grid read one contiguous array.
+ *
+ * Since only ids are stored, a tile that is not one of the constants in Tileset (for example a
+ * TETile.colorVariant copy) comes back as the Tileset constant with the same id.
+ *
+ * copyOnWrite() makes a copy that shares the array with this grid until either of them is
+ * written to, so copies that are only read, or written much later, cost nothing up front.
+ */
+public class TileGrid {
+    private final int width;
+    private final int height;
+    private short[] ids;
+    // true while ids may also be referenced by another grid; cleared by the first write
+    private boolean shared;
+
+    /**
+     * Creates a grid filled with the given tile.
+     * @param width width of the grid in tiles
+     * @param height height of the grid in tiles
+     * @param fill the tile every cell starts as
+     */
+    public TileGrid(int width, int height, TETile fill) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Grid dimensions must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.ids = new short[width * height];
+        Arrays.fill(ids, (short) fill.id());
+    }
+
+    private TileGrid(int width, int height, short[] ids, boolean shared) {
+        this.width = width;
+        this.height = height;
+        this.ids = ids;
+        this.shared = shared;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    /**
+     * @return true if (x, y) is a cell of this grid
+     */
+    public boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Id of the tile at (x, y).
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return the tile id
+     */
+    public int getId(int x, int y) {
+        return ids[index(x, y)];
+    }
+
+    /**
+     * Tile at (x, y).
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return the Tileset constant stored at (x, y)
+     */
+    public TETile get(int x, int y) {
+        return Tileset.fromId(ids[index(x, y)]);
+    }
+
+    /**
+     * Sets the tile at (x, y).
+     * @param x x coordinate
+     * @param y y coordinate
+     * @param tile the tile to store; only its id is kept
+     */
+    public void set(int x, int y, TETile tile) {
+        int i = index(x, y);
+        unshare();
+        ids[i] = (short) tile.id();
+    }
+
+    /**
+     * Copies the ids of a run of cells along a row into an array.
+     * @param x left column of the run
+     * @param y row of the run
+     * @param length number of cells; nothing is copied if it is 0
+     * @param dst the array to copy into
+     * @param offset where in dst the first id goes
+     */
+    public void getIds(int x, int y, int length, short[] dst, int offset) {
+        if (length <= 0) {
+            return;
+        }
+        int from = index(x, y);
+        index(x + length - 1, y);
+        System.arraycopy(ids, from, dst, offset, length);
+    }
+
+    /**
+     * Sets a run of cells along a row from an array of ids. The ids are stored as they are, so
+     * they must be ids of Tileset constants.
+     * @param x left column of the run
+     * @param y row of the run
+     * @param length number of cells; nothing is set if it is 0
+     * @param src the array to copy from
+     * @param offset where in src the first id is
+     */
+    public void setIds(int x, int y, int length, short[] src, int offset) {
+        if (length <= 0) {
+            return;
+        }
+        int from = index(x, y);
+        index(x + length - 1, y);
+        unshare();
+        System.arraycopy(src, offset, ids, from, length);
+    }
+
+    /**
+     * Sets every cell of a rectangle to the given tile, a row at a time.
+     * @param x left column of the rectangle
+     * @param y bottom row of the rectangle
+     * @param w width of the rectangle; nothing is set if it is 0
+     * @param h height of the rectangle; nothing is set if it is 0
+     * @param tile the tile to store
+     */
+    public void fillRect(int x, int y, int w, int h, TETile tile) {
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+        // checks both corners, so every cell in between is in bounds
+        index(x, y);
+        index(x + w - 1, y + h - 1);
+        unshare();
+        short id = (short) tile.id();
+        for (int row = y; row < y + h; row++) {
+            int from = row * width + x;
+            Arrays.fill(ids, from, from + w, id);
+        }
+    }
+
+    /**
+     * Sets every cell on a horizontal or vertical segment to the given tile.
+     * @param x0 x coordinate of one end
+     * @param y0 y coordinate of one end
+     * @param x1 x coordinate of the other end
+     * @param y1 y coordinate of the other end
+     * @param tile the tile to store
+     * @throws IllegalArgumentException if the segment is neither horizontal nor vertical
+     */
+    public void fillSegment(int x0, int y0, int x1, int y1, TETile tile) {
+        if (x0 != x1 && y0 != y1) {
+            throw new IllegalArgumentException("Segment must be horizontal or vertical");
+        }
+        fillRect(Math.min(x0, x1), Math.min(y0, y1), Math.abs(x1 - x0) + 1,
+                Math.abs(y1 - y0) + 1, tile);
+    }
+
+    /**
+     * Sets every cell of the grid to the given tile.
+     * @param tile the tile to fill with
+     */
+    public void fill(TETile tile) {
+        unshare();
+        Arrays.fill(ids, (short) tile.id());
+    }
+
+    /**
+     * Sets the tile of every cell whose bit is set in a layer. Row 0 of the layer is row fromY
+     * of this grid; only set bits are visited, a word at a time.
+     * @param mask the layer, as wide as this grid
+     * @param fromY the row of this grid that row 0 of the layer covers
+     * @param tile the tile to store
+     */
+    public void setWhere(BitGrid mask, int fromY, TETile tile) {
+        if (mask.width() != width) {
+            throw new IllegalArgumentException("Mask must be as wide as the grid");
+        }
+        index(0, fromY);
+        index(width - 1, fromY + mask.height() - 1);
+        unshare();
+        short id = (short) tile.id();
+        for (int y = 0; y < mask.height(); y++) {
+            int row = (fromY + y) * width;
+            for (int i = 0; i < mask.wordsPerRow(); i++) {
+                long word = mask.word(y, i);
+                while (word != 0) {
+                    ids[row + (i << 6) + Long.numberOfTrailingZeros(word)] = id;
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes an independent copy of this grid.
+     * @return the copy
+     */
+    public TileGrid copy() {
+        return new TileGrid(width, height, Arrays.copyOf(ids, ids.length), false);
+    }
+
+    /**
+     * Makes a copy of this grid that shares its storage with this grid until one of the two is
+     * written to; the one written to then takes a private copy first. Several threads may take
+     * copy-on-write copies of the same grid at once, as long as none of them writes to it.
+     * @return the copy
+     */
+    public TileGrid copyOnWrite() {
+        shared = true;
+        return new TileGrid(width, height, ids, true);
+    }
+
+    /**
+     * Builds a TETile[][] with the same contents as this grid, indexed [x][y] like the arrays
+     * TERenderer and the autograder expect. The array is created on each call and is not backed
+     * by the grid, so later changes to either one are not reflected in the other.
+     * @return a new 2D array of tiles
+     */
+    public TETile[][] toArray() {
+        TETile[][] tiles = new TETile[width][height];
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                tiles[x][y] = Tileset.fromId(ids[row + x]);
+            }
+        }
+        return tiles;
+    }
+
+    private void unshare() {
+        if (shared) {
+            ids = Arrays.copyOf(ids, ids.length);
+            shared = false;
+        }
+    }
+
+    private int index(int x, int y) {
+        if (!inBounds(x, y)) {
+            throw new IndexOutOfBoundsException("Tile (" + x + ", " + y + ") is outside of a "
+                    + width + "x" + height + " grid");
+        }
+        return y * width + x;
+    }
+}
@@ -34,6 +34,26 @@ public class Tileset {
     public static final TETile TREE = new TETile('♠', Color.green, Color.black, "tree", 11);
 
     public static final TETile CELL = new TETile('█', Color.white, Color.black, "cell", 12);
+
+    // indexed by tile id; must be declared after the tiles above so they are initialized
+    private static final TETile[] BY_ID = {
+        AVATAR, WALL, FLOOR, NOTHING, GRASS, WATER, FLOWER, LOCKED_DOOR, UNLOCKED_DOOR, SAND,
+        MOUNTAIN, TREE, CELL
+    };
+
+    /**
+     * Looks up the tile constant with the given id. This is the registry used by TileGrid, which
+     * stores tile ids instead of TETile references.
+     * @param id id of the tile
+     * @return the tile constant with that id
+     * @throws IllegalArgumentException if no tile in this file has the given id
+     */
+    public static TETile fromId(int id) {
+        if (id < 0 || id >= BY_ID.length) {
+            throw new IllegalArgumentException("No tile with id " + id);
+        }
+        return BY_ID[id];
+    }
 }
 
 
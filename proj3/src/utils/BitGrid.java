@@ -0,0 +1,356 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * A width x height grid of bits, packed 64 cells to a long. Each row takes wordsPerRow() longs
+ * (bit x of a row is bit x % 64 of word x / 64), and the rows are stored one after another in
+ * a single long[]. Bits past the width in a row's last word are always 0.
+ *
+ * Besides single-cell get and set, whole rows can be read and combined a word at a time, which
+ * lets neighbourhood operations like dilate handle 64 cells per step.
+ */
+public class BitGrid {
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] words;
+
+    /**
+     * Creates a grid with every bit clear.
+     *
+     * @param width The width of the grid in cells.
+     * @param height The height of the grid in cells.
+     */
+    public BitGrid(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Grid dimensions must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.words = new long[wordsPerRow * height];
+    }
+
+    private BitGrid(BitGrid other) {
+        this.width = other.width;
+        this.height = other.height;
+        this.wordsPerRow = other.wordsPerRow;
+        this.words = other.words.clone();
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int wordsPerRow() {
+        return wordsPerRow;
+    }
+
+    /**
+     * @return true if (x, y) is a cell of this grid
+     */
+    public boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Returns the bit at (x, y).
+     *
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @return true if the bit is set.
+     */
+    public boolean get(int x, int y) {
+        checkBounds(x, y);
+        return (words[y * wordsPerRow + (x >>> 6)] & 1L << x) != 0;
+    }
+
+    /**
+     * Sets the bit at (x, y).
+     *
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     */
+    public void set(int x, int y) {
+        checkBounds(x, y);
+        words[y * wordsPerRow + (x >>> 6)] |= 1L << x;
+    }
+
+    /**
+     * Clears the bit at (x, y).
+     *
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     */
+    public void clear(int x, int y) {
+        checkBounds(x, y);
+        words[y * wordsPerRow + (x >>> 6)] &= ~(1L << x);
+    }
+
+    /**
+     * Sets or clears the bit at (x, y).
+     *
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @param value true to set the bit, false to clear it.
+     */
+    public void set(int x, int y, boolean value) {
+        if (value) {
+            set(x, y);
+        } else {
+            clear(x, y);
+        }
+    }
+
+    /**
+     * Sets every bit of a rectangle, a word at a time.
+     *
+     * @param x The left column of the rectangle.
+     * @param y The bottom row of the rectangle.
+     * @param w The width of the rectangle; nothing is set if it is 0.
+     * @param h The height of the rectangle; nothing is set if it is 0.
+     */
+    public void fillRect(int x, int y, int w, int h) {
+        setRect(x, y, w, h, true);
+    }
+
+    /**
+     * Clears every bit of a rectangle, a word at a time.
+     *
+     * @param x The left column of the rectangle.
+     * @param y The bottom row of the rectangle.
+     * @param w The width of the rectangle; nothing is cleared if it is 0.
+     * @param h The height of the rectangle; nothing is cleared if it is 0.
+     */
+    public void clearRect(int x, int y, int w, int h) {
+        setRect(x, y, w, h, false);
+    }
+
+    private void setRect(int x, int y, int w, int h, boolean value) {
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+        checkBounds(x, y);
+        checkBounds(x + w - 1, y + h - 1);
+        int first = x >>> 6;
+        int last = (x + w - 1) >>> 6;
+        long firstMask = -1L << x;
+        long lastMask = -1L >>> (63 - ((x + w - 1) & 63));
+        for (int row = y * wordsPerRow; row < (y + h) * wordsPerRow; row += wordsPerRow) {
+            if (first == last) {
+                apply(row + first, firstMask & lastMask, value);
+            } else {
+                apply(row + first, firstMask, value);
+                for (int i = first + 1; i < last; i++) {
+                    words[row + i] = value ? -1L : 0;
+                }
+                apply(row + last, lastMask, value);
+            }
+        }
+    }
+
+    private void apply(int word, long mask, boolean value) {
+        if (value) {
+            words[word] |= mask;
+        } else {
+            words[word] &= ~mask;
+        }
+    }
+
+    /**
+     * Sets every bit on a horizontal or vertical segment.
+     *
+     * @param x0 The x coordinate of one end.
+     * @param y0 The y coordinate of one end.
+     * @param x1 The x coordinate of the other end.
+     * @param y1 The y coordinate of the other end.
+     * @throws IllegalArgumentException if the segment is neither horizontal nor vertical.
+     */
+    public void fillSegment(int x0, int y0, int x1, int y1) {
+        if (x0 != x1 && y0 != y1) {
+            throw new IllegalArgumentException("Segment must be horizontal or vertical");
+        }
+        fillRect(Math.min(x0, x1), Math.min(y0, y1), Math.abs(x1 - x0) + 1,
+                Math.abs(y1 - y0) + 1);
+    }
+
+    /**
+     * Returns one word of a row.
+     *
+     * @param y The row.
+     * @param i Which word of the row, from 0 to wordsPerRow() - 1.
+     * @return Bits 64 * i to 64 * i + 63 of the row.
+     */
+    public long word(int y, int i) {
+        return words[y * wordsPerRow + i];
+    }
+
+    /**
+     * Replaces one word of a row. Bits past the width of the grid are dropped.
+     *
+     * @param y The row.
+     * @param i Which word of the row, from 0 to wordsPerRow() - 1.
+     * @param value Bits 64 * i to 64 * i + 63 of the row.
+     */
+    public void setWord(int y, int i, long value) {
+        words[y * wordsPerRow + i] = i == wordsPerRow - 1 ? value & lastWordMask() : value;
+    }
+
+    /**
+     * Returns the first set bit of a row at or after a column.
+     *
+     * @param y The row.
+     * @param fromX The column to start at.
+     * @return The column of the first set bit, or width() if there is none.
+     */
+    public int nextSetBit(int y, int fromX) {
+        if (fromX >= width) {
+            return width;
+        }
+        int row = y * wordsPerRow;
+        int i = fromX >>> 6;
+        long w = words[row + i] & -1L << fromX;
+        while (w == 0) {
+            if (++i == wordsPerRow) {
+                return width;
+            }
+            w = words[row + i];
+        }
+        return (i << 6) + Long.numberOfTrailingZeros(w);
+    }
+
+    /**
+     * Returns the first clear bit of a row at or after a column.
+     *
+     * @param y The row.
+     * @param fromX The column to start at.
+     * @return The column of the first clear bit, or width() if there is none.
+     */
+    public int nextClearBit(int y, int fromX) {
+        if (fromX >= width) {
+            return width;
+        }
+        int row = y * wordsPerRow;
+        int i = fromX >>> 6;
+        long w = ~words[row + i] & -1L << fromX;
+        while (w == 0) {
+            if (++i == wordsPerRow) {
+                return width;
+            }
+            w = ~words[row + i];
+        }
+        return Math.min(width, (i << 6) + Long.numberOfTrailingZeros(w));
+    }
+
+    /**
+     * Clears every bit.
+     */
+    public void clear() {
+        Arrays.fill(words, 0);
+    }
+
+    /**
+     * Clears every bit that is set in the other grid, which must be the same size.
+     *
+     * @param other The bits to clear.
+     */
+    public void andNot(BitGrid other) {
+        checkSameSize(other);
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= ~other.words[i];
+        }
+    }
+
+    /**
+     * Sets every bit that is set in the other grid, which must be the same size.
+     *
+     * @param other The bits to set.
+     */
+    public void or(BitGrid other) {
+        checkSameSize(other);
+        for (int i = 0; i < words.length; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+
+    /**
+     * Returns a new grid in which a bit is set if it, or one of its four neighbours, is set in
+     * this grid. Cells outside the grid count as clear.
+     *
+     * @return The dilated grid.
+     */
+    public BitGrid dilate() {
+        BitGrid out = new BitGrid(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int i = 0; i < wordsPerRow; i++) {
+                out.words[y * wordsPerRow + i] = dilatedWord(y, i);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Returns one word of dilate() without building the whole dilated grid, so that a caller
+     * can dilate only some rows.
+     *
+     * @param y The row.
+     * @param i Which word of the row, from 0 to wordsPerRow() - 1.
+     * @return Bits 64 * i to 64 * i + 63 of row y of the dilated grid.
+     */
+    public long dilatedWord(int y, int i) {
+        int at = y * wordsPerRow + i;
+        long w = words[at];
+        long previous = i > 0 ? words[at - 1] : 0;
+        long next = i + 1 < wordsPerRow ? words[at + 1] : 0;
+        long below = y > 0 ? words[at - wordsPerRow] : 0;
+        long above = y + 1 < height ? words[at + wordsPerRow] : 0;
+        long d = w
+                | (w << 1 | previous >>> 63) // left neighbour set
+                | (w >>> 1 | next << 63)     // right neighbour set
+                | below | above;
+        return i == wordsPerRow - 1 ? d & lastWordMask() : d;
+    }
+
+    /**
+     * @return the number of set bits
+     */
+    public int cardinality() {
+        int count = 0;
+        for (long w : words) {
+            count += Long.bitCount(w);
+        }
+        return count;
+    }
+
+    /**
+     * Makes an independent copy of this grid.
+     *
+     * @return The copy.
+     */
+    public BitGrid copy() {
+        return new BitGrid(this);
+    }
+
+    private long lastWordMask() {
+        int used = width & 63;
+        return used == 0 ? -1L : (1L << used) - 1;
+    }
+
+    private void checkSameSize(BitGrid other) {
+        if (other.width != width || other.height != height) {
+            throw new IllegalArgumentException("Grids must be the same size");
+        }
+    }
+
+    private void checkBounds(int x, int y) {
+        if (!inBounds(x, y)) {
+            throw new IndexOutOfBoundsException("Cell (" + x + ", " + y + ") is outside of a "
+                    + width + "x" + height + " grid");
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of primitive longs. Callers usually pack a priority into the high bits and
+ * an index into the low bits, so the heap orders by priority without boxing or allocating a node
+ * per entry.
+ */
+public class LongHeap {
+    private long[] heap;
+    private int size;
+
+    /**
+     * Creates an empty heap.
+     *
+     * @param initialCapacity The number of entries to make room for up front.
+     */
+    public LongHeap(int initialCapacity) {
+        heap = new long[Math.max(1, initialCapacity)];
+    }
+
+    /**
+     * Adds a value to the heap.
+     *
+     * @param value The value to add.
+     */
+    public void push(long value) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+
+    /**
+     * Removes and returns the smallest value in the heap.
+     *
+     * @return The smallest value.
+     * @throws IllegalStateException if the heap is empty.
+     */
+    public long pop() {
+        if (size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+        long min = heap[0];
+        long last = heap[--size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return min;
+    }
+
+    /**
+     * @return true if the heap has no values, false otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every value, keeping the allocated capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+}
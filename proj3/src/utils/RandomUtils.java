@@ -527,6 +527,29 @@ public class RandomUtils {
         return perm;
     }
 
+    /**
+     * Derives a new seed from a base seed and two coordinates, such as a chunk or region
+     * position. The same inputs always give the same seed, and nearby coordinates give
+     * unrelated seeds, so each piece of a world can be generated on its own.
+     *
+     * @param seed the base seed
+     * @param a the first coordinate
+     * @param b the second coordinate
+     * @return a seed for a {@code Random} belonging to ({@code a}, {@code b})
+     */
+    public static long deriveSeed(long seed, long a, long b) {
+        long h = mix(seed + 0x9E3779B97F4A7C15L);
+        h = mix(h ^ (a * 0xC2B2AE3D27D4EB4FL));
+        return mix(h ^ (b * 0x165667B19E3779F9L));
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
     // throw an IllegalArgumentException if x is null
     // (x can be of type Object[], double[], int[], ...)
     private static void validateNotNull(Object x) {
@@ -0,0 +1,78 @@
+package utils;
+
+/**
+ * Disjoint sets over the integers 0 to n - 1, with union by size and path halving, so any
+ * sequence of operations runs in near-linear time.
+ */
+public class UnionFind {
+    private final int[] parent;
+    private final int[] size;
+    private int count;
+
+    /**
+     * Creates n sets of one element each.
+     *
+     * @param n The number of elements.
+     */
+    public UnionFind(int n) {
+        parent = new int[n];
+        size = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+        count = n;
+    }
+
+    /**
+     * Returns the representative of the set containing i.
+     *
+     * @param i The element.
+     * @return The representative, the same for every element of the set.
+     */
+    public int find(int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Merges the sets containing a and b.
+     *
+     * @param a An element of the first set.
+     * @param b An element of the second set.
+     * @return true if they were different sets.
+     */
+    public boolean union(int a, int b) {
+        int ra = find(a);
+        int rb = find(b);
+        if (ra == rb) {
+            return false;
+        }
+        if (size[ra] < size[rb]) {
+            int t = ra;
+            ra = rb;
+            rb = t;
+        }
+        parent[rb] = ra;
+        size[ra] += size[rb];
+        count--;
+        return true;
+    }
+
+    /**
+     * @return true if a and b are in the same set
+     */
+    public boolean connected(int a, int b) {
+        return find(a) == find(b);
+    }
+
+    /**
+     * @return the number of disjoint sets
+     */
+    public int count() {
+        return count;
+    }
+}
@@ -0,0 +1,56 @@
+import org.junit.jupiter.api.Test;
+import utils.BitGrid;
+
+import java.util.Random;
+
+import static com.google.common.truth.Truth.*;
+
+public class BitGridTest {
+    @Test
+    public void testSetAndClear() {
+        BitGrid bits = new BitGrid(130, 3);
+        bits.set(0, 0);
+        bits.set(63, 1);
+        bits.set(64, 1);
+        bits.set(129, 2);
+        bits.clear(63, 1);
+
+        assertThat(bits.get(0, 0)).isTrue();
+        assertThat(bits.get(63, 1)).isFalse();
+        assertThat(bits.get(64, 1)).isTrue();
+        assertThat(bits.get(129, 2)).isTrue();
+        assertThat(bits.cardinality()).isEqualTo(3);
+    }
+
+    @Test
+    public void testFillRectAcrossWords() {
+        BitGrid bits = new BitGrid(200, 10);
+        bits.fillRect(60, 2, 75, 3);
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 200; x++) {
+                boolean inside = x >= 60 && x < 135 && y >= 2 && y < 5;
+                assertThat(bits.get(x, y)).isEqualTo(inside);
+            }
+        }
+        bits.fillSegment(199, 9, 199, 0);
+        assertThat(bits.cardinality()).isEqualTo(75 * 3 + 10);
+    }
+
+    @Test
+    public void testDilateMatchesNeighbourCheck() {
+        Random rnd = new Random(4);
+        BitGrid bits = new BitGrid(150, 20);
+        for (int i = 0; i < 300; i++) {
+            bits.set(rnd.nextInt(150), rnd.nextInt(20));
+        }
+        BitGrid dilated = bits.dilate();
+        for (int y = 0; y < 20; y++) {
+            for (int x = 0; x < 150; x++) {
+                boolean expected = bits.get(x, y)
+                        || x > 0 && bits.get(x - 1, y) || x < 149 && bits.get(x + 1, y)
+                        || y > 0 && bits.get(x, y - 1) || y < 19 && bits.get(x, y + 1);
+                assertThat(dilated.get(x, y)).isEqualTo(expected);
+            }
+        }
+    }
+}
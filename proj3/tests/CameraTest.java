@@ -0,0 +1,69 @@
+import org.junit.jupiter.api.Test;
+import tileengine.Camera;
+
+import static com.google.common.truth.Truth.*;
+
+public class CameraTest {
+    @Test
+    public void testCentersAndClampsToTheWorld() {
+        Camera camera = new Camera(70, 30, 1000, 500);
+        camera.jumpTo(500, 250);
+        assertThat(camera.x()).isEqualTo(465);
+        assertThat(camera.y()).isEqualTo(235);
+
+        camera.jumpTo(3, 2);
+        assertThat(camera.x()).isEqualTo(0);
+        assertThat(camera.y()).isEqualTo(0);
+
+        camera.jumpTo(999, 499);
+        assertThat(camera.x()).isEqualTo(1000 - 70);
+        assertThat(camera.y()).isEqualTo(500 - 30);
+    }
+
+    @Test
+    public void testWorldSmallerThanWindowStaysPut() {
+        Camera camera = new Camera(70, 30, 40, 20);
+        camera.jumpTo(39, 19);
+        assertThat(camera.x()).isEqualTo(0);
+        assertThat(camera.y()).isEqualTo(0);
+        assertThat(camera.showsWorldAt(39.5, 19.5)).isTrue();
+        assertThat(camera.showsWorldAt(40.5, 10)).isFalse();
+        assertThat(camera.showsWorldAt(10, 25)).isFalse();
+    }
+
+    @Test
+    public void testScrollsSmoothlyToTheTarget() {
+        Camera camera = new Camera(70, 30, 1000, 500);
+        camera.jumpTo(100, 100);
+        camera.follow(400, 100);
+        assertThat(camera.isScrolling()).isTrue();
+
+        int updates = 0;
+        int lastStep = Integer.MAX_VALUE;
+        int lastX = camera.x();
+        while (camera.update()) {
+            int step = camera.x() - lastX;
+            // eases out: never faster than the step before, always towards the target
+            assertThat(step).isGreaterThan(0);
+            assertThat(step).isAtMost(lastStep);
+            lastStep = step;
+            lastX = camera.x();
+            updates++;
+        }
+        assertThat(updates).isGreaterThan(1);
+        assertThat(camera.x()).isEqualTo(400 - 35);
+        assertThat(camera.y()).isEqualTo(100 - 15);
+        assertThat(camera.isScrolling()).isFalse();
+    }
+
+    @Test
+    public void testMapsScreenToWorld() {
+        Camera camera = new Camera(70, 30, 1000, 500);
+        camera.jumpTo(500, 250);
+        assertThat(camera.worldX(0.2)).isEqualTo(465);
+        assertThat(camera.worldY(29.9)).isEqualTo(264);
+        assertThat(camera.showsWorldAt(69.9, 29.9)).isTrue();
+        assertThat(camera.showsWorldAt(70, 0)).isFalse();
+        assertThat(camera.showsWorldAt(-0.1, 0)).isFalse();
+    }
+}
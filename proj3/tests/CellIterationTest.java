@@ -0,0 +1,80 @@
+import core.Hallway;
+import core.Room;
+import org.junit.jupiter.api.Test;
+import tileengine.TileGrid;
+import tileengine.Tileset;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CellIterationTest {
+    @Test
+    public void testRoomCellsMatchIterator() {
+        Random rnd = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            Room r = Room.generateRoom(5, 10, 60, 60, rnd);
+            List<Point> cells = new ArrayList<>();
+            r.forEachCell((x, y) -> cells.add(new Point(x, y)));
+            List<Point> points = new ArrayList<>();
+            r.forEach(points::add);
+            assertThat(cells).isEqualTo(points);
+        }
+    }
+
+    @Test
+    public void testHallwayCellsMatchIterator() {
+        Random rnd = new Random(2);
+        List<Hallway> hallways = List.of(
+                new Hallway(new Point(3, 5), new Point(9, 5)),
+                new Hallway(new Point(9, 5), new Point(3, 5)),
+                new Hallway(new Point(4, 8), new Point(4, 2)),
+                new Hallway(new Point(1, 1), new Point(6, 9), new Point(1, 9)),
+                new Hallway(new Point(8, 8), new Point(2, 3), new Point(2, 8)),
+                Hallway.generateHallway(new Room(6, 6, new Point(0, 0)),
+                        new Room(6, 6, new Point(20, 20)), rnd));
+        for (Hallway h : hallways) {
+            List<Point> cells = new ArrayList<>();
+            h.forEachCell((x, y) -> cells.add(new Point(x, y)));
+            List<Point> points = new ArrayList<>();
+            h.forEach(points::add);
+            assertThat(cells).isEqualTo(points);
+        }
+    }
+
+    @Test
+    public void testFillMatchesSettingEachCell() {
+        Random rnd = new Random(3);
+        Room r1 = new Room(6, 7, new Point(2, 3));
+        Room r2 = new Room(8, 5, new Point(20, 15));
+        Hallway h = Hallway.generateHallway(r1, r2, rnd);
+
+        TileGrid filled = new TileGrid(40, 30, Tileset.NOTHING);
+        r1.fill(filled, Tileset.FLOOR);
+        r2.fill(filled, Tileset.FLOOR);
+        h.fill(filled, Tileset.FLOOR);
+
+        TileGrid set = new TileGrid(40, 30, Tileset.NOTHING);
+        for (Iterable<Point> cells : List.<Iterable<Point>>of(r1, r2, h)) {
+            for (Point p : cells) {
+                set.set(p.x, p.y, Tileset.FLOOR);
+            }
+        }
+        for (int y = 0; y < 30; y++) {
+            for (int x = 0; x < 40; x++) {
+                assertThat(filled.getId(x, y)).isEqualTo(set.getId(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testFillSegmentRejectsDiagonals() {
+        TileGrid grid = new TileGrid(5, 5, Tileset.NOTHING);
+        assertThrows(IllegalArgumentException.class,
+                () -> grid.fillSegment(0, 0, 2, 2, Tileset.FLOOR));
+    }
+}
@@ -0,0 +1,80 @@
+import core.ChunkedWorld;
+import org.junit.jupiter.api.Test;
+import tileengine.TileGrid;
+import tileengine.Tileset;
+
+import static com.google.common.truth.Truth.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ChunkedWorldTest {
+    private static final int SIZE = ChunkedWorld.CHUNK_SIZE;
+
+    @Test
+    public void testEvictedChunksRegenerateTheSame() {
+        ChunkedWorld world = new ChunkedWorld(1234, 4);
+        TileGrid before = new TileGrid(SIZE, SIZE, Tileset.NOTHING);
+        world.copyRegion(before, -SIZE, 3 * SIZE);
+
+        // touch enough far away chunks to push the first one out
+        for (int i = 0; i < 10; i++) {
+            world.getTile(100 * SIZE + i * SIZE, 0);
+        }
+        assertThat(world.loadedChunks()).isEqualTo(4);
+
+        TileGrid after = new TileGrid(SIZE, SIZE, Tileset.NOTHING);
+        world.copyRegion(after, -SIZE, 3 * SIZE);
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                assertThat(after.get(x, y)).isSameInstanceAs(before.get(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testChunksMeetAtFloorPorts() {
+        ChunkedWorld world = new ChunkedWorld(42, 16);
+        int crossings = 0;
+        for (int y = 0; y < SIZE; y++) {
+            if (world.getTile(SIZE - 1, y) == Tileset.FLOOR
+                    && world.getTile(SIZE, y) == Tileset.FLOOR) {
+                crossings++;
+            }
+        }
+        assertThat(crossings).isEqualTo(1);
+    }
+
+    @Test
+    public void testMemoryStaysBoundedWhileWalking() {
+        ChunkedWorld world = new ChunkedWorld(7, 9);
+        for (int i = 0; i < 5000; i++) {
+            world.moveAvatar("wasd".charAt(i * 7 % 4));
+            world.getTile(world.getAvatarX() + i, world.getAvatarY() - i);
+        }
+        assertThat(world.loadedChunks()).isAtMost(9);
+    }
+
+    @Test
+    public void testCopyRegionMatchesGetTile() {
+        ChunkedWorld world = new ChunkedWorld(99, ChunkedWorld.chunksCovering(150, 70));
+        // a window that isn't chunk aligned, with the avatar in it
+        int x0 = world.getAvatarX() - 100;
+        int y0 = world.getAvatarY() - 37;
+        TileGrid window = new TileGrid(150, 70, Tileset.NOTHING);
+        world.copyRegion(window, x0, y0);
+        for (int y = 0; y < 70; y++) {
+            for (int x = 0; x < 150; x++) {
+                assertThat(window.get(x, y)).isSameInstanceAs(world.getTile(x0 + x, y0 + y));
+            }
+        }
+        assertThat(window.get(100, 37)).isSameInstanceAs(Tileset.AVATAR);
+    }
+
+    @Test
+    public void testCopyRegionNeedsRoomForItsChunks() {
+        assertThat(ChunkedWorld.chunksCovering(SIZE, SIZE)).isEqualTo(4);
+        assertThat(ChunkedWorld.chunksCovering(1, SIZE + 2)).isEqualTo(3);
+        ChunkedWorld world = new ChunkedWorld(3, 3);
+        assertThrows(IllegalArgumentException.class,
+                () -> world.copyRegion(new TileGrid(SIZE, SIZE, Tileset.NOTHING), 0, 0));
+    }
+}
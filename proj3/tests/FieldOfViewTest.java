@@ -0,0 +1,99 @@
+import core.FieldOfView;
+import core.World;
+import org.junit.jupiter.api.Test;
+import tileengine.Tileset;
+import utils.BitGrid;
+
+import java.util.Random;
+
+import static com.google.common.truth.Truth.*;
+
+public class FieldOfViewTest {
+    @Test
+    public void testOpenGroundIsADisc() {
+        BitGrid open = new BitGrid(41, 41);
+        open.fillRect(0, 0, 41, 41);
+        FieldOfView fov = new FieldOfView(open, 9);
+        fov.compute(20, 20);
+        for (int y = 0; y < 41; y++) {
+            for (int x = 0; x < 41; x++) {
+                int dx = x - 20;
+                int dy = y - 20;
+                assertThat(fov.isVisible(x, y)).isEqualTo(dx * dx + dy * dy <= 81);
+            }
+        }
+    }
+
+    @Test
+    public void testWallsHideWhatIsBehindThem() {
+        // a 5x5 room with walls around it, in open ground
+        BitGrid open = new BitGrid(30, 30);
+        open.fillRect(0, 0, 30, 30);
+        open.clearRect(10, 10, 7, 7);
+        open.fillRect(11, 11, 5, 5);
+        FieldOfView fov = new FieldOfView(open, 10);
+        fov.compute(13, 13);
+
+        for (int y = 0; y < 30; y++) {
+            for (int x = 0; x < 30; x++) {
+                boolean inRoomOrWall = x >= 10 && x <= 16 && y >= 10 && y <= 16;
+                assertThat(fov.isVisible(x, y)).isEqualTo(inRoomOrWall);
+            }
+        }
+    }
+
+    @Test
+    public void testMovingKeepsExploredAndClearsVisible() {
+        Random rnd = new Random(5);
+        BitGrid floors = new BitGrid(60, 40);
+        for (int y = 0; y < 40; y++) {
+            for (int x = 0; x < 60; x++) {
+                floors.set(x, y, rnd.nextInt(10) < 8);
+            }
+        }
+        FieldOfView moving = new FieldOfView(floors, 6);
+        BitGrid seen = new BitGrid(60, 40);
+        for (int step = 0; step < 30; step++) {
+            int x = rnd.nextInt(60);
+            int y = rnd.nextInt(40);
+            moving.compute(x, y);
+            FieldOfView fresh = new FieldOfView(floors, 6);
+            fresh.compute(x, y);
+            seen.or(fresh.visible());
+
+            for (int cy = 0; cy < 40; cy++) {
+                for (int cx = 0; cx < 60; cx++) {
+                    assertThat(moving.isVisible(cx, cy)).isEqualTo(fresh.isVisible(cx, cy));
+                    assertThat(moving.isExplored(cx, cy)).isEqualTo(seen.get(cx, cy));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSightLimitShowsOnlyWhatTheAvatarSees() {
+        World world = World.loadWorld("n42stddd", 30, 70);
+        assertThat(world.isSightLimited()).isTrue();
+        int ax = world.getAvatarX();
+        int ay = world.getAvatarY();
+        int r = World.SIGHT_RADIUS;
+        assertThat(world.getVisible().get(ax, ay)).isTrue();
+        int shown = 0;
+        for (int y = 0; y < 30; y++) {
+            for (int x = 0; x < 70; x++) {
+                if (world.getVisible().get(x, y)) {
+                    shown++;
+                    int dx = x - ax;
+                    int dy = y - ay;
+                    assertThat(dx * dx + dy * dy).isAtMost(r * r);
+                } else {
+                    assertThat(world.getTile(x, y)).isEqualTo(Tileset.NOTHING);
+                }
+            }
+        }
+        assertThat(world.getExplored().cardinality()).isAtLeast(shown);
+
+        world.setSightRadius(2);
+        assertThat(world.getVisible().cardinality()).isLessThan(shown);
+    }
+}
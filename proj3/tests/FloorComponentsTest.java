@@ -0,0 +1,99 @@
+import core.FloorComponents;
+import core.Hallway;
+import core.Room;
+import core.World;
+import org.junit.jupiter.api.Test;
+import tileengine.TileGrid;
+import tileengine.Tileset;
+import utils.BitGrid;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.*;
+
+public class FloorComponentsTest {
+    @Test
+    public void testLabelsMatchFloodFill() {
+        Random rnd = new Random(6);
+        BitGrid floors = new BitGrid(100, 40);
+        for (int i = 0; i < 1500; i++) {
+            floors.set(rnd.nextInt(100), rnd.nextInt(40));
+        }
+        FloorComponents components = new FloorComponents(floors);
+
+        int[][] flood = new int[100][40];
+        int count = 0;
+        for (int x = 0; x < 100; x++) {
+            for (int y = 0; y < 40; y++) {
+                if (floors.get(x, y) && flood[x][y] == 0) {
+                    count++;
+                    fill(floors, flood, x, y, count);
+                }
+            }
+        }
+        assertThat(components.count()).isEqualTo(count);
+
+        // same flood label <=> same component
+        for (int i = 0; i < 2000; i++) {
+            int x1 = rnd.nextInt(100);
+            int y1 = rnd.nextInt(40);
+            int x2 = rnd.nextInt(100);
+            int y2 = rnd.nextInt(40);
+            if (floors.get(x1, y1) && floors.get(x2, y2)) {
+                assertThat(components.componentOf(x1, y1) == components.componentOf(x2, y2))
+                        .isEqualTo(flood[x1][y1] == flood[x2][y2]);
+            } else if (!floors.get(x1, y1)) {
+                assertThat(components.componentOf(x1, y1)).isEqualTo(-1);
+            }
+        }
+    }
+
+    private static void fill(BitGrid floors, int[][] flood, int x, int y, int label) {
+        List<int[]> stack = new ArrayList<>();
+        stack.add(new int[]{x, y});
+        while (!stack.isEmpty()) {
+            int[] p = stack.remove(stack.size() - 1);
+            if (!floors.inBounds(p[0], p[1]) || !floors.get(p[0], p[1])
+                    || flood[p[0]][p[1]] != 0) {
+                continue;
+            }
+            flood[p[0]][p[1]] = label;
+            stack.add(new int[]{p[0] + 1, p[1]});
+            stack.add(new int[]{p[0] - 1, p[1]});
+            stack.add(new int[]{p[0], p[1] + 1});
+            stack.add(new int[]{p[0], p[1] - 1});
+        }
+    }
+
+    @Test
+    public void testConnectRepairsMissingHallways() {
+        List<Room> rooms = List.of(new Room(6, 6, new Point(2, 2)),
+                new Room(6, 6, new Point(20, 3)), new Room(7, 5, new Point(40, 20)));
+        List<Hallway> hallways = new ArrayList<>();
+        TileGrid tiles = new TileGrid(60, 30, Tileset.NOTHING);
+        BitGrid floors = new BitGrid(60, 30);
+        // rooms only, as if every planned hallway had failed
+        for (Room r : rooms) {
+            r.fill(tiles, Tileset.FLOOR);
+            r.fill(floors);
+        }
+        assertThat(new FloorComponents(floors).count()).isEqualTo(3);
+
+        int repairs = FloorComponents.connect(tiles, floors, rooms, hallways, new Random(1));
+        assertThat(repairs).isEqualTo(2);
+        assertThat(hallways).hasSize(2);
+        assertThat(new FloorComponents(floors).count()).isEqualTo(1);
+        assertThat(tiles.getId(3, 3)).isEqualTo(Tileset.FLOOR.id());
+    }
+
+    @Test
+    public void testGeneratedWorldsNeedNoRepairs() {
+        for (long seed = 0; seed < 50; seed++) {
+            World world = new World(seed, 30, 70);
+            assertThat(new FloorComponents(world.getWalkable()).count()).isEqualTo(1);
+        }
+    }
+}
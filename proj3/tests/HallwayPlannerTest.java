@@ -0,0 +1,120 @@
+import core.HallwayPlanner;
+import core.Room;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.*;
+
+public class HallwayPlannerTest {
+    @Test
+    public void testPlanIsSpanningTree() {
+        Random rnd = new Random(3);
+        for (int trial = 0; trial < 20; trial++) {
+            List<Room> rooms = randomRooms(rnd, 2 + rnd.nextInt(200), 400, 200);
+            int[] plan = HallwayPlanner.plan(rooms);
+            assertSpanningTree(rooms, plan);
+        }
+    }
+
+    @Test
+    public void testSmallPlans() {
+        assertThat(HallwayPlanner.plan(List.of()).length).isEqualTo(0);
+        assertThat(HallwayPlanner.plan(List.of(new Room(3, 3, new Point(0, 0)))).length).isEqualTo(0);
+
+        List<Room> two = List.of(new Room(3, 3, new Point(0, 0)), new Room(3, 3, new Point(10, 0)));
+        assertThat(HallwayPlanner.plan(two)).isEqualTo(new int[]{0, 1});
+    }
+
+    @Test
+    public void testWeightMatchesPrim() {
+        Random rnd = new Random(7);
+        for (int trial = 0; trial < 20; trial++) {
+            List<Room> rooms = randomRooms(rnd, 2 + rnd.nextInt(300), 90 + rnd.nextInt(400), 40 + rnd.nextInt(200));
+            int[] plan = HallwayPlanner.plan(rooms);
+            assertSpanningTree(rooms, plan);
+            assertThat(weight(rooms, plan)).isEqualTo(primWeight(rooms));
+        }
+    }
+
+    @Test
+    public void testDisconnectedNeighbourGraphStillSpans() {
+        // two clusters of eight rooms, far apart: each room's nearest neighbours are all in its
+        // own cluster, so the first neighbour graph has two components
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            rooms.add(new Room(3, 3, new Point(5 * (i % 4), 5 * (i / 4))));
+        }
+        for (int i = 0; i < 8; i++) {
+            rooms.add(new Room(3, 3, new Point(1000 + 5 * (i % 4), 500 + 5 * (i / 4))));
+        }
+        int[] plan = HallwayPlanner.plan(rooms);
+        assertSpanningTree(rooms, plan);
+        assertThat(weight(rooms, plan)).isEqualTo(primWeight(rooms));
+    }
+
+    private static List<Room> randomRooms(Random rnd, int n, int width, int height) {
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            rooms.add(Room.generateRoom(3, 12, width, height, rnd));
+        }
+        return rooms;
+    }
+
+    /**
+     * Each planned edge must lead from a connected room to a new one, and every room must be
+     * connected at the end.
+     */
+    private static void assertSpanningTree(List<Room> rooms, int[] plan) {
+        int n = rooms.size();
+        assertThat(plan.length).isEqualTo(2 * (n - 1));
+        boolean[] connected = new boolean[n];
+        connected[0] = true;
+        for (int i = 0; i < plan.length; i += 2) {
+            assertThat(connected[plan[i]]).isTrue();
+            assertThat(connected[plan[i + 1]]).isFalse();
+            connected[plan[i + 1]] = true;
+        }
+        for (boolean c : connected) {
+            assertThat(c).isTrue();
+        }
+    }
+
+    private static long weight(List<Room> rooms, int[] plan) {
+        long total = 0;
+        for (int i = 0; i < plan.length; i += 2) {
+            total += Room.distBetweenRooms(rooms.get(plan[i]), rooms.get(plan[i + 1]));
+        }
+        return total;
+    }
+
+    // O(n^2) Prim over every pair of rooms
+    private static long primWeight(List<Room> rooms) {
+        int n = rooms.size();
+        boolean[] connected = new boolean[n];
+        int[] best = new int[n];
+        Arrays.fill(best, Integer.MAX_VALUE);
+        best[0] = 0;
+        long total = 0;
+        for (int step = 0; step < n; step++) {
+            int next = -1;
+            for (int i = 0; i < n; i++) {
+                if (!connected[i] && (next < 0 || best[i] < best[next])) {
+                    next = i;
+                }
+            }
+            connected[next] = true;
+            total += best[next];
+            for (int i = 0; i < n; i++) {
+                if (!connected[i]) {
+                    best[i] = Math.min(best[i], Room.distBetweenRooms(rooms.get(next), rooms.get(i)));
+                }
+            }
+        }
+        return total;
+    }
+}
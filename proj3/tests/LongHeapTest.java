@@ -0,0 +1,66 @@
+import org.junit.jupiter.api.Test;
+import utils.LongHeap;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LongHeapTest {
+    @Test
+    public void testMatchesPriorityQueue() {
+        Random rnd = new Random(11);
+        LongHeap heap = new LongHeap(4);
+        PriorityQueue<Long> expected = new PriorityQueue<>();
+        for (int i = 0; i < 20000; i++) {
+            // mostly pushes, with runs of pops, and a small range so there are duplicates
+            if (expected.isEmpty() || rnd.nextInt(3) > 0) {
+                long value = rnd.nextInt(500) - 250L;
+                heap.push(value);
+                expected.add(value);
+            } else {
+                assertThat(heap.pop()).isEqualTo(expected.poll());
+            }
+            assertThat(heap.isEmpty()).isEqualTo(expected.isEmpty());
+        }
+        while (!expected.isEmpty()) {
+            assertThat(heap.pop()).isEqualTo(expected.poll());
+        }
+        assertThat(heap.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testGrowsPastInitialCapacity() {
+        LongHeap heap = new LongHeap(0);
+        PriorityQueue<Long> expected = new PriorityQueue<>();
+        Random rnd = new Random(5);
+        for (int i = 0; i < 1000; i++) {
+            // packed priority and index, as HallwayPlanner uses it
+            long value = ((long) rnd.nextInt(Integer.MAX_VALUE) << 32) | i;
+            heap.push(value);
+            expected.add(value);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertThat(heap.pop()).isEqualTo(expected.poll());
+        }
+        assertThat(heap.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testEmptyHeap() {
+        LongHeap heap = new LongHeap(8);
+        assertThat(heap.isEmpty()).isTrue();
+        assertThrows(IllegalStateException.class, heap::pop);
+
+        heap.push(Long.MAX_VALUE);
+        heap.push(Long.MIN_VALUE);
+        heap.clear();
+        assertThat(heap.isEmpty()).isTrue();
+        assertThrows(IllegalStateException.class, heap::pop);
+
+        heap.push(3);
+        assertThat(heap.pop()).isEqualTo(3L);
+        assertThat(heap.isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,110 @@
+import core.SaveFile;
+import core.SaveStore;
+import core.World;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.*;
+
+public class MoveHistoryTest {
+    /**
+     * Play n random moves and sight toggles, returning the avatar position and sight limit after
+     * each recorded move, starting with the state before any
+     */
+    private static List<int[]> play(World world, int n, Random rnd) {
+        List<int[]> states = new ArrayList<>();
+        states.add(state(world));
+        for (int i = 0; i < n; i++) {
+            int before = world.getMovePosition();
+            if (rnd.nextInt(20) == 0) {
+                world.toggleSightLimit();
+            } else {
+                world.moveAvatar("wasd".charAt(rnd.nextInt(4)));
+            }
+            if (world.getMovePosition() > before) {
+                states.add(state(world));
+            }
+        }
+        return states;
+    }
+
+    private static int[] state(World world) {
+        return new int[]{world.getAvatarX(), world.getAvatarY(), world.isSightLimited() ? 1 : 0};
+    }
+
+    @Test
+    public void testUndoAndRedoIncludingSightToggles() {
+        World world = new World(12, 30, 70);
+        List<int[]> states = play(world, 500, new Random(1));
+        int moves = states.size() - 1;
+        assertThat(world.getRecordedMoveCount()).isEqualTo(moves);
+
+        for (int i = moves; i > 0; i--) {
+            assertThat(state(world)).isEqualTo(states.get(i));
+            assertThat(world.undoMove()).isTrue();
+        }
+        assertThat(state(world)).isEqualTo(states.get(0));
+        assertThat(world.undoMove()).isFalse();
+        assertThat(world.getSave()).isEqualTo("n12s");
+
+        for (int i = 1; i <= moves; i++) {
+            assertThat(world.redoMove()).isTrue();
+            assertThat(state(world)).isEqualTo(states.get(i));
+        }
+        assertThat(world.redoMove()).isFalse();
+    }
+
+    @Test
+    public void testNewMoveDropsRedo() {
+        World world = World.loadWorld("n12sddddtaaaa", 30, 70);
+        world.undoMove();
+        world.undoMove();
+        world.toggleSightLimit();
+        assertThat(world.redoMove()).isFalse();
+        assertThat(world.getRecordedMoveCount()).isEqualTo(world.getMovePosition());
+        assertThat(world.getSave()).endsWith("taat");
+    }
+
+    @Test
+    public void testSeekMatchesPlayedStates() {
+        World world = new World(31, 30, 70);
+        Random rnd = new Random(2);
+        List<int[]> states = play(world, 20000, rnd);
+        int moves = states.size() - 1;
+        for (int i = 0; i < 300; i++) {
+            int target = rnd.nextInt(moves + 1);
+            world.seek(target);
+            assertThat(world.getMovePosition()).isEqualTo(target);
+            assertThat(state(world)).isEqualTo(states.get(target));
+        }
+
+        // seeking back keeps the later moves for redo
+        world.seek(10);
+        assertThat(world.getRecordedMoveCount()).isEqualTo(moves);
+        world.seek(moves);
+        assertThat(state(world)).isEqualTo(states.get(moves));
+    }
+
+    @Test
+    public void testSaveAfterUndoDropsUndoneMoves() {
+        World world = new World(7, 30, 70);
+        play(world, 300, new Random(3));
+        for (int i = 0; i < 100; i++) {
+            world.undoMove();
+        }
+        SaveStore store = SaveStore.inMemory();
+        SaveFile.save(store, world);
+        World loaded = SaveFile.load(store, 30, 70);
+        assertThat(loaded.getSave()).isEqualTo(world.getSave());
+        assertThat(state(loaded)).isEqualTo(state(world));
+        assertThat(loaded.redoMove()).isFalse();
+
+        // a loaded session can still be undone and sought back to the start
+        loaded.seek(0);
+        assertThat(loaded.getMovePosition()).isEqualTo(0);
+        assertThat(loaded.undoMove()).isFalse();
+    }
+}
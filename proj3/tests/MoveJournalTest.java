@@ -0,0 +1,229 @@
+import core.MoveJournal;
+import core.World;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.*;
+
+public class MoveJournalTest {
+    private static Path journalFile() throws IOException {
+        Path dir = Files.createTempDirectory("journal");
+        dir.toFile().deleteOnExit();
+        Path file = dir.resolve(MoveJournal.JOURNAL_FILE);
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    private static void play(World world, int n, Random rnd) {
+        for (int i = 0; i < n; i++) {
+            int r = rnd.nextInt(40);
+            if (r == 0) {
+                world.toggleSightLimit();
+            } else if (r == 1) {
+                world.undoMove();
+            } else if (r == 2) {
+                world.redoMove();
+            } else if (r == 3) {
+                world.seek(rnd.nextInt(world.getRecordedMoveCount() + 1));
+            } else {
+                world.moveAvatar("wasd".charAt(rnd.nextInt(4)));
+            }
+        }
+    }
+
+    private static void assertSameSession(World actual, World expected) {
+        assertThat(actual.getSave()).isEqualTo(expected.getSave());
+        assertThat(actual.getAvatarX()).isEqualTo(expected.getAvatarX());
+        assertThat(actual.getAvatarY()).isEqualTo(expected.getAvatarY());
+        assertThat(actual.isSightLimited()).isEqualTo(expected.isSightLimited());
+        assertThat(actual.getRecordedMoveCount()).isEqualTo(expected.getRecordedMoveCount());
+    }
+
+    @Test
+    public void testRecoversWithoutClose() throws IOException {
+        Path file = journalFile();
+        World world = new World(99, 30, 70);
+        MoveJournal journal = MoveJournal.start(file, world);
+        play(world, 2000, new Random(1));
+        journal.flush();
+
+        MoveJournal.Recovery recovery = MoveJournal.recover(file);
+        assertThat(recovery.tornBytes()).isEqualTo(0);
+        assertSameSession(recovery.world(), world);
+        journal.discard();
+        assertThat(Files.exists(file)).isFalse();
+        assertThat(MoveJournal.recover(file)).isNull();
+    }
+
+    @Test
+    public void testTornTailIsSkipped() throws IOException {
+        Path file = journalFile();
+        World world = new World(5, 30, 70);
+        MoveJournal journal = MoveJournal.start(file, world);
+        Random rnd = new Random(2);
+        play(world, 300, rnd);
+        journal.flush();
+        long intact = Files.size(file);
+        String save = world.getSave();
+        int x = world.getAvatarX();
+        int y = world.getAvatarY();
+
+        // fewer events than a group commit batch, so they all go in one last record
+        play(world, 100, rnd);
+        journal.close();
+        long full = Files.size(file);
+        assertThat(full).isGreaterThan(intact);
+
+        // a crash in the middle of the last write
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(full - 3);
+        }
+        MoveJournal.Recovery recovery = MoveJournal.recover(file);
+        assertThat(recovery.tornBytes()).isEqualTo(full - 3 - intact);
+        assertThat(recovery.world().getSave()).isEqualTo(save);
+        assertThat(recovery.world().getAvatarX()).isEqualTo(x);
+        assertThat(recovery.world().getAvatarY()).isEqualTo(y);
+
+        // and one whose last record was written but is corrupt
+        byte[] data = Files.readAllBytes(file);
+        data[data.length - 1] ^= 1;
+        Files.write(file, data);
+        assertThat(MoveJournal.recover(file).world().getSave()).isEqualTo(save);
+    }
+
+    @Test
+    public void testMovesAreGroupCommitted() throws IOException {
+        Path file = journalFile();
+        World world = new World(8, 30, 70);
+        MoveJournal journal = MoveJournal.start(file, world);
+        for (int i = 0; i < 2000; i++) {
+            world.moveAvatar("wasd".charAt(i % 4));
+        }
+        journal.flush();
+        assertThat(journal.syncs()).isLessThan(100L);
+        journal.discard();
+    }
+
+    @Test
+    public void testSnapshotsBoundRecovery() throws IOException {
+        Path file = journalFile();
+        World world = new World(13, 30, 70);
+        MoveJournal journal = MoveJournal.start(file, world);
+        Random rnd = new Random(4);
+        for (int i = 0; i < 10000; i++) {
+            world.moveAvatar("wasd".charAt(rnd.nextInt(4)));
+        }
+        journal.close();
+
+        MoveJournal.Recovery recovery = MoveJournal.recover(file);
+        assertThat(recovery.events()).isLessThan(4096);
+        assertSameSession(recovery.world(), world);
+    }
+
+    @Test
+    public void testUndoAndRedoCountTowardsSnapshots() throws IOException {
+        Path file = journalFile();
+        World world = new World(21, 30, 70);
+        MoveJournal journal = MoveJournal.start(file, world);
+        for (int i = 0; i < 100; i++) {
+            world.moveAvatar("wasd".charAt(i % 4));
+        }
+        for (int i = 0; i < 5000; i++) {
+            world.undoMove();
+            world.redoMove();
+        }
+        journal.close();
+
+        MoveJournal.Recovery recovery = MoveJournal.recover(file);
+        assertThat(recovery.events()).isLessThan(4096);
+        assertSameSession(recovery.world(), world);
+    }
+
+    @Test
+    public void testSnapshotKeepsRedoMoves() throws IOException {
+        Path file = journalFile();
+        World world = new World(34, 30, 70);
+        MoveJournal journal = MoveJournal.start(file, world);
+        Random rnd = new Random(6);
+        for (int i = 0; i < 4000; i++) {
+            world.moveAvatar("wasd".charAt(rnd.nextInt(4)));
+        }
+        // the snapshot falls among these, while there are moves to redo
+        for (int i = 0; i < 150; i++) {
+            world.undoMove();
+        }
+        world.seek(world.getMovePosition() - 40);
+        journal.close();
+
+        World recovered = MoveJournal.recover(file).world();
+        assertSameSession(recovered, world);
+        assertThat(recovered.getMovePosition()).isEqualTo(world.getMovePosition());
+        world.seek(world.getRecordedMoveCount());
+        recovered.seek(recovered.getRecordedMoveCount());
+        assertSameSession(recovered, world);
+    }
+
+    @Test
+    public void testMovesAfterUndoLeaveSnapshotIntact() throws IOException {
+        Path file = journalFile();
+        World world = new World(12, 30, 70);
+        MoveJournal journal = MoveJournal.start(file, world);
+        Random rnd = new Random(8);
+        for (int i = 0; i < 4095; i++) {
+            world.toggleSightLimit();
+        }
+        // the last toggle hands the writer a snapshot; rewriting the moves it holds straight
+        // away must not change what the writer encodes
+        world.toggleSightLimit();
+        for (int i = 0; i < 200; i++) {
+            world.undoMove();
+        }
+        for (int i = 0; i < 200; i++) {
+            world.moveAvatar("wasd".charAt(rnd.nextInt(4)));
+        }
+        journal.close();
+
+        assertSameSession(MoveJournal.recover(file).world(), world);
+    }
+
+    /**
+     * @return the shortest time any of blocks of 8192 toggles took for its slowest toggle;
+     * every block has a snapshot in it
+     */
+    private static long slowestToggleNanos(World world, int blocks) {
+        long best = Long.MAX_VALUE;
+        for (int b = 0; b < blocks; b++) {
+            long slowest = 0;
+            for (int i = 0; i < 8192; i++) {
+                long start = System.nanoTime();
+                world.toggleSightLimit();
+                slowest = Math.max(slowest, System.nanoTime() - start);
+            }
+            best = Math.min(best, slowest);
+        }
+        return best;
+    }
+
+    @Test
+    public void testRecordLatencyDoesNotGrowWithSession() throws IOException {
+        World shortSession = new World(21, 30, 70);
+        MoveJournal journal = MoveJournal.start(journalFile(), shortSession);
+        slowestToggleNanos(shortSession, 4);
+        long shortNanos = slowestToggleNanos(shortSession, 4);
+        journal.close();
+
+        World longSession = World.loadWorld("n21s" + "t".repeat(4 << 20), 30, 70);
+        journal = MoveJournal.start(journalFile(), longSession);
+        long longNanos = slowestToggleNanos(longSession, 4);
+        journal.close();
+
+        // encoding four million moves on the game thread would take milliseconds
+        assertThat(longNanos).isAtMost(4 * shortNanos + 1_000_000);
+    }
+}
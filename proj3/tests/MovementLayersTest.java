@@ -0,0 +1,56 @@
+import core.World;
+import core.WorldCache;
+import org.junit.jupiter.api.Test;
+import tileengine.TileGrid;
+import tileengine.Tileset;
+import utils.BitGrid;
+
+import static com.google.common.truth.Truth.*;
+
+public class MovementLayersTest {
+    @Test
+    public void testWalkableIsFloorUnderAvatar() {
+        World world = new World(8, 30, 70);
+        TileGrid tiles = world.getTiles();
+        BitGrid walkable = world.getWalkable();
+        for (int y = 0; y < 30; y++) {
+            for (int x = 0; x < 70; x++) {
+                int id = tiles.getId(x, y);
+                boolean floor = id == Tileset.FLOOR.id() || id == Tileset.AVATAR.id();
+                assertThat(walkable.get(x, y)).isEqualTo(floor);
+            }
+        }
+    }
+
+    @Test
+    public void testOccupiedFollowsAvatar() {
+        World world = World.loadWorld("n8swwddssaa", 30, 70);
+        BitGrid occupied = world.getOccupied();
+        assertThat(occupied.cardinality()).isEqualTo(1);
+        assertThat(occupied.get(world.getAvatarX(), world.getAvatarY())).isTrue();
+        assertThat(world.isOpen(world.getAvatarX(), world.getAvatarY())).isFalse();
+
+        world.undoMove();
+        assertThat(occupied.cardinality()).isEqualTo(1);
+        assertThat(occupied.get(world.getAvatarX(), world.getAvatarY())).isTrue();
+    }
+
+    @Test
+    public void testCachedSessionsHaveTheirOwnOccupancy() {
+        WorldCache cache = new WorldCache(2);
+        World first = cache.get(8, 30, 70);
+        World second = cache.get(8, 30, 70);
+        int x = second.getAvatarX();
+        int y = second.getAvatarY();
+
+        for (char key : "ddddwwww".toCharArray()) {
+            first.moveAvatar(key);
+        }
+        assertThat(first.getAvatarX() != x || first.getAvatarY() != y).isTrue();
+
+        BitGrid occupied = second.getOccupied();
+        assertThat(occupied.cardinality()).isEqualTo(1);
+        assertThat(occupied.get(x, y)).isTrue();
+        assertThat(first.getOccupied().get(first.getAvatarX(), first.getAvatarY())).isTrue();
+    }
+}
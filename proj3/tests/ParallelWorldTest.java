@@ -0,0 +1,40 @@
+import core.World;
+import org.junit.jupiter.api.Test;
+import tileengine.TileGrid;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static com.google.common.truth.Truth.*;
+
+public class ParallelWorldTest {
+    @Test
+    public void testSameWorldForAnyThreadCount() {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool many = new ForkJoinPool(4);
+        try {
+            for (long seed = 0; seed < 3; seed++) {
+                TileGrid a = new World(seed, 600, 700, single).getTiles();
+                TileGrid b = new World(seed, 600, 700, many).getTiles();
+                for (int y = 0; y < a.height(); y++) {
+                    for (int x = 0; x < a.width(); x++) {
+                        assertThat(a.getId(x, y)).isEqualTo(b.getId(x, y));
+                    }
+                }
+            }
+        } finally {
+            single.shutdown();
+            many.shutdown();
+        }
+    }
+
+    @Test
+    public void testSmallWorldIsOneRegion() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            World world = new World(99, 30, 70, pool);
+            assertThat(world.getTiles().width()).isEqualTo(70);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+import core.PathFinder;
+import core.World;
+import org.junit.jupiter.api.Test;
+import utils.BitGrid;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.*;
+
+public class PathFinderTest {
+    @Test
+    public void testOpenGridPathIsManhattan() {
+        BitGrid walkable = new BitGrid(20, 10);
+        walkable.fillRect(0, 0, 20, 10);
+        PathFinder finder = new PathFinder(walkable, new BitGrid(20, 10));
+        assertThat(finder.findPath(1, 2, 15, 7)).isEqualTo(19);
+        assertThat(endOf(finder.path(), 1, 2)).isEqualTo(new int[]{15, 7});
+        assertThat(finder.findPath(3, 3, 3, 3)).isEqualTo(0);
+        assertThat(finder.path()).isEmpty();
+    }
+
+    @Test
+    public void testBlockedTargets() {
+        BitGrid walkable = new BitGrid(10, 10);
+        walkable.fillRect(0, 0, 4, 10);
+        walkable.fillRect(6, 0, 4, 10);
+        BitGrid occupied = new BitGrid(10, 10);
+        occupied.set(2, 5);
+        PathFinder finder = new PathFinder(walkable, occupied);
+        assertThat(finder.findPath(0, 0, 8, 8)).isEqualTo(-1); // other side of the gap
+        assertThat(finder.findPath(0, 0, 5, 5)).isEqualTo(-1); // not walkable
+        assertThat(finder.findPath(0, 0, 2, 5)).isEqualTo(-1); // occupied
+        assertThat(finder.findPath(0, 0, 20, 5)).isEqualTo(-1); // out of bounds
+        assertThat(finder.path()).isEmpty();
+    }
+
+    @Test
+    public void testMatchesBreadthFirstSearch() {
+        Random rnd = new Random(3);
+        for (int trial = 0; trial < 50; trial++) {
+            int width = 40;
+            int height = 30;
+            BitGrid walkable = new BitGrid(width, height);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    walkable.set(x, y, rnd.nextInt(10) < 7);
+                }
+            }
+            BitGrid occupied = new BitGrid(width, height);
+            PathFinder finder = new PathFinder(walkable, occupied);
+            for (int query = 0; query < 20; query++) {
+                int sx = rnd.nextInt(width);
+                int sy = rnd.nextInt(height);
+                int tx = rnd.nextInt(width);
+                int ty = rnd.nextInt(height);
+                int expected = bfs(walkable, sx, sy, tx, ty);
+                int length = finder.findPath(sx, sy, tx, ty);
+                assertThat(length).isEqualTo(expected);
+                if (length > 0) {
+                    String path = finder.path();
+                    assertThat(path.length()).isEqualTo(length);
+                    int x = sx;
+                    int y = sy;
+                    for (char c : path.toCharArray()) {
+                        switch (c) {
+                            case 'w' -> y++;
+                            case 's' -> y--;
+                            case 'a' -> x--;
+                            default -> x++;
+                        }
+                        assertThat(walkable.get(x, y)).isTrue();
+                    }
+                    assertThat(new int[]{x, y}).isEqualTo(new int[]{tx, ty});
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTravelToRecordsMoves() {
+        World world = new World(8, 30, 70);
+        int startX = world.getAvatarX();
+        int startY = world.getAvatarY();
+        BitGrid walkable = world.getWalkable();
+
+        // the reachable floor cell furthest from the avatar
+        int bestX = startX;
+        int bestY = startY;
+        int best = 0;
+        for (int y = 0; y < 30; y++) {
+            for (int x = 0; x < 70; x++) {
+                int d = bfs(walkable, startX, startY, x, y);
+                if (d > best) {
+                    best = d;
+                    bestX = x;
+                    bestY = y;
+                }
+            }
+        }
+
+        assertThat(world.travelTo(bestX, bestY)).isTrue();
+        assertThat(world.getAvatarX()).isEqualTo(bestX);
+        assertThat(world.getAvatarY()).isEqualTo(bestY);
+        assertThat(world.getSave().length()).isEqualTo("n8s".length() + best);
+
+        World replayed = World.loadWorld(world.getSave(), 30, 70);
+        assertThat(replayed.getAvatarX()).isEqualTo(bestX);
+        assertThat(replayed.getAvatarY()).isEqualTo(bestY);
+
+        // a wall can't be travelled to, and a failed trip records nothing
+        String save = world.getSave();
+        assertThat(world.travelTo(0, 0)).isFalse();
+        assertThat(world.getSave()).isEqualTo(save);
+    }
+
+    private static int[] endOf(String path, int x, int y) {
+        for (char c : path.toCharArray()) {
+            switch (c) {
+                case 'w' -> y++;
+                case 's' -> y--;
+                case 'a' -> x--;
+                default -> x++;
+            }
+        }
+        return new int[]{x, y};
+    }
+
+    private static int bfs(BitGrid walkable, int sx, int sy, int tx, int ty) {
+        if (sx == tx && sy == ty) {
+            return 0;
+        }
+        if (!walkable.get(tx, ty)) {
+            return -1;
+        }
+        int width = walkable.width();
+        int[] dist = new int[width * walkable.height()];
+        Arrays.fill(dist, -1);
+        dist[sy * width + sx] = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(sy * width + sx);
+        int[][] steps = {{0, 1}, {0, -1}, {-1, 0}, {1, 0}};
+        while (!queue.isEmpty()) {
+            int cell = queue.remove();
+            for (int[] step : steps) {
+                int nx = cell % width + step[0];
+                int ny = cell / width + step[1];
+                if (walkable.inBounds(nx, ny) && walkable.get(nx, ny)
+                        && dist[ny * width + nx] < 0) {
+                    dist[ny * width + nx] = dist[cell] + 1;
+                    if (nx == tx && ny == ty) {
+                        return dist[ny * width + nx];
+                    }
+                    queue.add(ny * width + nx);
+                }
+            }
+        }
+        return -1;
+    }
+}
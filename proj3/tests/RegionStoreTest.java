@@ -0,0 +1,113 @@
+import core.RegionStore;
+import core.World;
+import org.junit.jupiter.api.Test;
+import tileengine.TileGrid;
+import tileengine.Tileset;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.google.common.truth.Truth.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RegionStoreTest {
+    private static Path regionFile() throws IOException {
+        Path file = Files.createTempFile("regions", ".bin");
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    private static void assertSameTiles(TileGrid actual, TileGrid expected) {
+        assertThat(actual.width()).isEqualTo(expected.width());
+        assertThat(actual.height()).isEqualTo(expected.height());
+        for (int y = 0; y < expected.height(); y++) {
+            for (int x = 0; x < expected.width(); x++) {
+                assertThat(actual.getId(x, y)).isEqualTo(expected.getId(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testNewFileIsNothing() throws IOException {
+        try (RegionStore store = RegionStore.create(regionFile(), 100, 70)) {
+            assertThat(store.get(0, 0)).isEqualTo(Tileset.NOTHING);
+            assertThat(store.get(99, 69)).isEqualTo(Tileset.NOTHING);
+            assertSameTiles(store.read(0, 0, 100, 70), new TileGrid(100, 70, Tileset.NOTHING));
+        }
+    }
+
+    @Test
+    public void testWorldRoundTripsThroughReopen() throws IOException {
+        // neither dimension is a multiple of the region size, so the edge regions are partial
+        World world = new World(4242, 150, 230);
+        Path file = regionFile();
+        RegionStore.save(file, world.getTiles());
+
+        try (RegionStore store = RegionStore.open(file)) {
+            assertThat(store.width()).isEqualTo(230);
+            assertThat(store.height()).isEqualTo(150);
+            assertSameTiles(store.read(0, 0, 230, 150), world.getTiles());
+            assertThat(store.get(17, 93)).isEqualTo(world.getTiles().get(17, 93));
+        }
+    }
+
+    @Test
+    public void testWindowsAcrossRegions() throws IOException {
+        Path file = regionFile();
+        TileGrid patch = new TileGrid(100, 90, Tileset.FLOOR);
+        patch.fillRect(10, 10, 70, 5, Tileset.WALL);
+        patch.set(99, 89, Tileset.AVATAR);
+        try (RegionStore store = RegionStore.create(file, 300, 200)) {
+            store.write(patch, 50, 60);
+            store.set(0, 0, Tileset.GRASS);
+            store.flush();
+        }
+
+        try (RegionStore store = RegionStore.open(file)) {
+            assertSameTiles(store.read(50, 60, 100, 90), patch);
+            assertThat(store.get(0, 0)).isEqualTo(Tileset.GRASS);
+            assertThat(store.get(49, 60)).isEqualTo(Tileset.NOTHING);
+            assertThat(store.get(150, 149)).isEqualTo(Tileset.NOTHING);
+            assertThat(store.get(149, 149)).isEqualTo(Tileset.AVATAR);
+
+            TileGrid window = store.read(120, 64, 40, 30);
+            assertThat(window.get(0, 0)).isEqualTo(Tileset.FLOOR);
+            assertThat(window.get(30, 0)).isEqualTo(Tileset.NOTHING);
+        }
+    }
+
+    @Test
+    public void testOutOfBounds() throws IOException {
+        try (RegionStore store = RegionStore.create(regionFile(), 64, 64)) {
+            assertThrows(IndexOutOfBoundsException.class, () -> store.get(64, 0));
+            assertThrows(IndexOutOfBoundsException.class,
+                    () -> store.write(new TileGrid(10, 10, Tileset.FLOOR), 60, 0));
+        }
+    }
+
+    @Test
+    public void testRejectsOtherFiles() throws IOException {
+        Path file = regionFile();
+        Files.writeString(file, "not a region file");
+        RuntimeException e = assertThrows(RuntimeException.class, () -> RegionStore.open(file));
+        assertThat(e.getMessage()).startsWith("Not a region file");
+    }
+
+    @Test
+    public void testClosedStoreCannotBeUsed() throws IOException {
+        Path file = regionFile();
+        RegionStore store = RegionStore.create(file, 100, 100);
+        store.set(5, 5, Tileset.WALL);
+        store.close();
+        assertThrows(IllegalStateException.class, () -> store.get(5, 5));
+        assertThrows(IllegalStateException.class, () -> store.set(5, 5, Tileset.FLOOR));
+        // closing again does nothing
+        store.close();
+
+        // the change reached the file without a flush
+        try (RegionStore reopened = RegionStore.open(file)) {
+            assertThat(reopened.get(5, 5)).isEqualTo(Tileset.WALL);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+import core.Room;
+import core.RoomIndex;
+import core.World;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.*;
+
+public class RoomIndexTest {
+    private static boolean collidesLinear(List<Room> rooms, Room r) {
+        for (Room other : rooms) {
+            if (other.collidesWith(r)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A room of random size, either anywhere, on a bucket boundary, or against an edge of the
+     * world
+     */
+    private static Room candidate(int width, int height, Random rnd) {
+        int w = rnd.nextInt(1, 12);
+        int h = rnd.nextInt(1, 12);
+        int x = rnd.nextInt(width - w + 1);
+        int y = rnd.nextInt(height - h + 1);
+        switch (rnd.nextInt(4)) {
+            case 0 -> {
+                // starting at, ending at, or straddling a multiple of the bucket size
+                int boundary = 16 * rnd.nextInt(width / 16 + 1);
+                x = Math.max(0, Math.min(width - w, boundary - rnd.nextInt(w + 1)));
+                boundary = 16 * rnd.nextInt(height / 16 + 1);
+                y = Math.max(0, Math.min(height - h, boundary - rnd.nextInt(h + 1)));
+            }
+            case 1 -> {
+                x = rnd.nextBoolean() ? 0 : width - w;
+                y = rnd.nextBoolean() ? 0 : height - h;
+            }
+            default -> { }
+        }
+        return new Room(w, h, new Point(x, y));
+    }
+
+    @Test
+    public void testMatchesLinearScan() {
+        Random rnd = new Random(4);
+        int[][] sizes = {{70, 30}, {64, 32}, {17, 15}, {100, 49}, {12, 12}};
+        for (int[] size : sizes) {
+            int width = size[0];
+            int height = size[1];
+            RoomIndex index = new RoomIndex(width, height);
+            List<Room> rooms = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                Room r = candidate(width, height, rnd);
+                boolean expected = collidesLinear(rooms, r);
+                assertThat(index.collidesWithAny(r)).isEqualTo(expected);
+                // place some rooms anyway, so there are overlaps as well as gaps
+                if (!expected || rnd.nextInt(8) == 0) {
+                    rooms.add(r);
+                    index.add(r);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        RoomIndex index = new RoomIndex(70, 30);
+        assertThat(index.collidesWithAny(new Room(70, 30, new Point(0, 0)))).isFalse();
+    }
+
+    /** Room placement as it was before RoomIndex: every candidate against every room. */
+    private static List<Room> generateRoomsLinear(int width, int height, double threshold,
+                                                  Random rnd) {
+        List<Room> placed = new ArrayList<>();
+        double filled = 0;
+        while (filled < threshold * width * height) {
+            Room currRoom = Room.generateRoom(5, 10, width, height, rnd);
+            if (collidesLinear(placed, currRoom)) {
+                continue;
+            }
+            placed.add(currRoom);
+            filled += (currRoom.getTopY() - currRoom.getBottomY() + 1)
+                    * (currRoom.getRightX() - currRoom.getLeftX() + 1);
+        }
+        return placed;
+    }
+
+    @Test
+    public void testGenerateRoomsPlacesSameRooms() {
+        int[][] sizes = {{70, 30}, {256, 256}, {33, 97}};
+        for (int[] size : sizes) {
+            for (long seed = 0; seed < 5; seed++) {
+                List<Room> expected = generateRoomsLinear(size[0], size[1], 0.4, new Random(seed));
+                List<Room> actual = World.generateRooms(size[0], size[1], 0.4, new Random(seed));
+                assertThat(actual).hasSize(expected.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    Room a = actual.get(i);
+                    Room e = expected.get(i);
+                    assertThat(a.getLeftX()).isEqualTo(e.getLeftX());
+                    assertThat(a.getBottomY()).isEqualTo(e.getBottomY());
+                    assertThat(a.getRightX()).isEqualTo(e.getRightX());
+                    assertThat(a.getTopY()).isEqualTo(e.getTopY());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+import core.AutograderBuddy;
+import core.SaveFile;
+import core.SaveStore;
+import core.World;
+import org.junit.jupiter.api.Test;
+import tileengine.TETile;
+import utils.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.*;
+
+public class SaveFileTest {
+    @Test
+    public void testBinaryRoundTrip() throws IOException {
+        World world = new World(2024, 30, 70);
+        Random rnd = new Random(5);
+        for (int i = 0; i < 1000; i++) {
+            world.moveAvatar("wasd".charAt(rnd.nextInt(4)));
+            if (i % 97 == 0) {
+                world.toggleSightLimit();
+            }
+        }
+
+        File file = File.createTempFile("save", ".bin");
+        file.deleteOnExit();
+        SaveFile.write(file.getPath(), world);
+        World loaded = SaveFile.read(file.getPath(), 30, 70);
+
+        assertThat(loaded.getSave()).isEqualTo(world.getSave());
+        assertThat(loaded.getAvatarX()).isEqualTo(world.getAvatarX());
+        assertThat(loaded.getAvatarY()).isEqualTo(world.getAvatarY());
+        assertThat(loaded.isSightLimited()).isEqualTo(world.isSightLimited());
+        assertThat(TETile.toString(loaded.getTileSet())).isEqualTo(TETile.toString(world.getTileSet()));
+        assertThat(file.length()).isLessThan(world.getSave().length());
+    }
+
+    @Test
+    public void testUndoAfterLoadGoesPastCheckpoint() throws IOException {
+        World world = World.loadWorld("n77s" + "wasd".repeat(100), 30, 70);
+        File file = File.createTempFile("save", ".bin");
+        file.deleteOnExit();
+        SaveFile.write(file.getPath(), world);
+
+        World loaded = SaveFile.read(file.getPath(), 30, 70);
+        String before = loaded.getSave();
+        for (int i = 0; i < 200; i++) {
+            world.undoMove();
+            loaded.undoMove();
+        }
+        assertThat(loaded.getSave().length()).isLessThan(before.length());
+        assertThat(TETile.toString(loaded.getTileSet())).isEqualTo(TETile.toString(world.getTileSet()));
+    }
+
+    @Test
+    public void testTextSavesStillLoad() throws IOException {
+        File file = File.createTempFile("save", ".txt");
+        file.deleteOnExit();
+        FileUtils.writeFile(file.getPath(), "n523swdwdwwaadawdasdwdwwdwds");
+
+        World loaded = SaveFile.read(file.getPath(), 30, 70);
+        TETile[][] expected = AutograderBuddy.getWorldFromInput("n523swdwdwwaadawdasdwdwwdwds");
+        assertThat(TETile.toString(loaded.getTileSet())).isEqualTo(TETile.toString(expected));
+    }
+
+    @Test
+    public void testAutograderSaveReplaysLikeInputText() {
+        String first = "n8swwwwwwwwddddddddddtsss:q";
+        String second = "laaaawwww";
+        SaveStore store = SaveStore.inMemory();
+        AutograderBuddy.runInput(first, store);
+        World loaded = AutograderBuddy.runInput(second, store);
+
+        // what a save of the raw input text, as it used to be written, replays to
+        World replayed = World.loadWorld(first + second.substring(1), 30, 70);
+        assertThat(TETile.toString(loaded.getTileSet()))
+                .isEqualTo(TETile.toString(replayed.getTileSet()));
+        assertThat(loaded.getSave()).isEqualTo(replayed.getSave());
+    }
+}
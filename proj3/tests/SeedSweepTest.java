@@ -0,0 +1,57 @@
+import core.SeedSweep;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import static com.google.common.truth.Truth.*;
+
+public class SeedSweepTest {
+    @Test
+    public void testCsvIsInSeedOrder() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SeedSweep.Summary summary = SeedSweep.sweep(100, 150, 70, 30, false, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines.length).isEqualTo(151);
+        assertThat(lines[0]).startsWith("seed,");
+        for (int i = 1; i < lines.length; i++) {
+            assertThat(lines[i]).startsWith((99 + i) + ",");
+        }
+        assertThat(summary.seeds()).isEqualTo(150);
+    }
+
+    @Test
+    public void testCsvIgnoresDefaultLocale() throws Exception {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            SeedSweep.sweep(0, 5, 70, 30, false, out);
+            String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+            for (int i = 1; i < lines.length; i++) {
+                assertThat(lines[i].split(",").length).isEqualTo(8);
+            }
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    public void testBinaryRecordsAreFixedSize() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SeedSweep.sweep(0, 10, 70, 30, true, out);
+        assertThat(out.size()).isEqualTo(10 * 52);
+    }
+
+    @Test
+    public void testMeasure() {
+        SeedSweep.SeedStats stats = SeedSweep.measure(42, 70, 30);
+        assertThat(stats.seed()).isEqualTo(42);
+        assertThat(stats.rooms()).isGreaterThan(0);
+        assertThat(stats.hallways()).isAtLeast(stats.rooms() - 1);
+        assertThat(stats.fill()).isGreaterThan(0.0);
+        assertThat(stats.reachable()).isEqualTo(1.0);
+    }
+}
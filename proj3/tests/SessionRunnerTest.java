@@ -0,0 +1,64 @@
+import core.AutograderBuddy;
+import core.SaveStore;
+import core.SessionRunner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.*;
+
+public class SessionRunnerTest {
+    @Test
+    public void testScriptsUseTheirOwnSaves() {
+        List<List<String>> scripts = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            scripts.add(List.of("n" + i + "swwdd:q", "lsa"));
+        }
+        SessionRunner.Report report = SessionRunner.run(scripts);
+
+        assertThat(report.failures()).isEqualTo(0);
+        for (int i = 0; i < 50; i++) {
+            SessionRunner.ScriptResult r = report.results().get(i);
+            assertThat(r.index()).isEqualTo(i);
+            assertThat(r.save()).startsWith("n" + i + "s");
+        }
+    }
+
+    @Test
+    public void testSameScriptsGiveSameResults() {
+        List<List<String>> scripts = List.of(List.of("n5swasd"), List.of("n5swasd"),
+                List.of("n6sddd:q", "lww"));
+        SessionRunner.Report report = SessionRunner.run(scripts);
+
+        assertThat(report.results().get(0).tileHash())
+                .isEqualTo(report.results().get(1).tileHash());
+        assertThat(report.results().get(0).tileHash())
+                .isNotEqualTo(report.results().get(2).tileHash());
+        assertThat(report.scriptsPerSecond()).isGreaterThan(0.0);
+    }
+
+    @Test
+    public void testLoadWithoutSaveFails() {
+        SessionRunner.Report report = SessionRunner.run(List.of(List.of("lwasd")));
+        assertThat(report.failures()).isEqualTo(1);
+        assertThat(report.results().get(0).succeeded()).isFalse();
+    }
+
+    @Test
+    public void testDirectoryStores(@TempDir Path root) {
+        SessionRunner.Report report = SessionRunner.run(
+                List.of(List.of("n1sdd:q"), List.of("n2sww:q")),
+                SessionRunner.directoryStores(root));
+
+        assertThat(report.failures()).isEqualTo(0);
+        assertThat(Files.exists(root.resolve("session0").resolve("save.bin"))).isTrue();
+        assertThat(Files.exists(root.resolve("session1").resolve("save.bin"))).isTrue();
+        SaveStore second = SaveStore.inDirectory(root.resolve("session1"));
+        assertThat(AutograderBuddy.runInput("l", second).getSave())
+                .isEqualTo(report.results().get(1).save());
+    }
+}
@@ -0,0 +1,68 @@
+import core.RegionStore;
+import core.StreamingWorldGenerator;
+import core.World;
+import org.junit.jupiter.api.Test;
+import tileengine.TileGrid;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.google.common.truth.Truth.*;
+
+public class StreamingWorldGeneratorTest {
+    private static void assertRowsMatch(long seed, int height, int width) {
+        World world = new World(seed, height, width);
+        StreamingWorldGenerator generator = new StreamingWorldGenerator(seed, height, width);
+        assertThat(generator.repairCount()).isEqualTo(world.getRepairCount());
+        assertThat(generator.avatarX()).isEqualTo(world.getAvatarX());
+        assertThat(generator.avatarY()).isEqualTo(world.getAvatarY());
+
+        TileGrid tiles = world.getTiles();
+        short[] expected = new short[width];
+        int[] rows = {0};
+        generator.rasterize((y, ids) -> {
+            assertThat(y).isEqualTo(rows[0]++);
+            tiles.getIds(0, y, width, expected, 0);
+            assertThat(ids).isEqualTo(expected);
+        });
+        assertThat(rows[0]).isEqualTo(height);
+    }
+
+    @Test
+    public void testMatchesWorld() {
+        for (long seed = 0; seed < 20; seed++) {
+            assertRowsMatch(seed, 30, 70);
+        }
+    }
+
+    @Test
+    public void testMatchesWorldAcrossBands() {
+        // heights that are and aren't a multiple of the band, and widths that aren't a word
+        assertRowsMatch(77, 256, 200);
+        assertRowsMatch(78, 300, 130);
+        assertRowsMatch(79, 129, 513);
+    }
+
+    @Test
+    public void testRasterizesIntoRegionStore() throws IOException {
+        Path file = Files.createTempFile("streamed", ".bin");
+        file.toFile().deleteOnExit();
+        StreamingWorldGenerator generator = new StreamingWorldGenerator(4242, 150, 230);
+        try (RegionStore store = RegionStore.create(file, generator.width(),
+                generator.height())) {
+            generator.rasterize(store::writeRow);
+            store.flush();
+        }
+
+        TileGrid expected = new World(4242, 150, 230).getTiles();
+        try (RegionStore store = RegionStore.open(file)) {
+            TileGrid actual = store.read(0, 0, 230, 150);
+            for (int y = 0; y < 150; y++) {
+                for (int x = 0; x < 230; x++) {
+                    assertThat(actual.getId(x, y)).isEqualTo(expected.getId(x, y));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+import core.World;
+import org.junit.jupiter.api.Test;
+import tileengine.Camera;
+import tileengine.TERenderer;
+import tileengine.TileGrid;
+import tileengine.Tileset;
+
+import static com.google.common.truth.Truth.*;
+
+public class TERendererTest {
+    @Test
+    public void testOnlyChangedTilesAreRedrawn() {
+        World world = new World(42, 30, 70);
+        TERenderer ter = new TERenderer();
+        ter.initialize(70, 32);
+
+        ter.renderFrame(world.getTiles());
+        assertThat(ter.tilesDrawnLastFrame()).isEqualTo(70 * 30);
+
+        ter.renderFrame(world.getTiles());
+        assertThat(ter.tilesDrawnLastFrame()).isEqualTo(0);
+
+        for (char key : "wasdwasd".toCharArray()) {
+            world.moveAvatar(key);
+            ter.renderFrame(world.getTiles());
+            assertThat(ter.tilesDrawnLastFrame()).isAtMost(2);
+        }
+    }
+
+    @Test
+    public void testSightLimitedFramesOnlyTouchVisibleArea() {
+        World world = new World(3, 30, 70);
+        world.toggleSightLimit();
+        TERenderer ter = new TERenderer();
+        ter.initialize(70, 32);
+        int r = world.getSightRadius();
+        ter.renderFrame(world.getTiles(), world.getVisible(), world.getExplored(),
+                world.getAvatarX(), world.getAvatarY(), r);
+
+        for (char key : "wwddssaawdsa".toCharArray()) {
+            world.moveAvatar(key);
+            ter.renderFrame(world.getTiles(), world.getVisible(), world.getExplored(),
+                    world.getAvatarX(), world.getAvatarY(), r);
+            // at most the cells of the old and new squares around the avatar
+            assertThat(ter.tilesDrawnLastFrame()).isAtMost(2 * (2 * r + 1) * (2 * r + 1));
+        }
+
+        // a full frame now only has to fill in what the sight limit was hiding or dimming
+        TileGrid grid = world.getTiles();
+        int changed = 0;
+        for (int y = 0; y < grid.height(); y++) {
+            for (int x = 0; x < grid.width(); x++) {
+                if (world.getExplored().get(x, y) && !world.getVisible().get(x, y)
+                        || !world.getExplored().get(x, y) && grid.get(x, y) != Tileset.NOTHING) {
+                    changed++;
+                }
+            }
+        }
+        ter.renderFrame(grid);
+        assertThat(ter.tilesDrawnLastFrame()).isEqualTo(changed);
+    }
+
+    @Test
+    public void testInvalidatedCellsAreRedrawn() {
+        TileGrid grid = new World(7, 30, 70).getTiles();
+        TERenderer ter = new TERenderer();
+        ter.initialize(70, 32);
+        ter.renderFrame(grid);
+
+        ter.invalidate(65, 28, 10, 10);
+        ter.renderFrame(grid);
+        assertThat(ter.tilesDrawnLastFrame()).isEqualTo(5 * 2);
+
+        ter.invalidateAll();
+        ter.renderFrame(grid);
+        assertThat(ter.tilesDrawnLastFrame()).isEqualTo(70 * 30);
+    }
+
+    @Test
+    public void testCameraFramesOnlyDrawTheWindow() {
+        World world = new World(11, 400, 600);
+        TileGrid grid = world.getTiles();
+        TERenderer ter = new TERenderer();
+        ter.initialize(70, 32);
+        Camera camera = new Camera(70, 30, 600, 400);
+        camera.jumpTo(300, 200);
+
+        ter.renderFrame(grid, camera);
+        assertThat(ter.tilesDrawnLastFrame()).isEqualTo(70 * 30);
+        ter.renderFrame(grid, camera);
+        assertThat(ter.tilesDrawnLastFrame()).isEqualTo(0);
+
+        // scrolling redraws at most the window, and only where the tile on screen changed
+        int changed = 0;
+        for (int y = 0; y < 30; y++) {
+            for (int x = 0; x < 70; x++) {
+                if (grid.getId(camera.x() + x, camera.y() + y)
+                        != grid.getId(camera.x() + x + 1, camera.y() + y)) {
+                    changed++;
+                }
+            }
+        }
+        camera.follow(301, 200);
+        assertThat(camera.update()).isTrue();
+        ter.renderFrame(grid, camera);
+        assertThat(ter.tilesDrawnLastFrame()).isEqualTo(changed);
+
+        world.toggleSightLimit();
+        ter.renderFrame(grid, world.getVisible(), world.getExplored(), world.getAvatarX(),
+                world.getAvatarY(), world.getSightRadius(), camera);
+        assertThat(ter.tilesDrawnLastFrame()).isAtMost(70 * 30);
+    }
+}
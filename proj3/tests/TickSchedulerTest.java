@@ -0,0 +1,46 @@
+import core.TickScheduler;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TickSchedulerTest {
+    @Test
+    public void testRejectsNonPositiveRate() {
+        assertThrows(IllegalArgumentException.class, () -> new TickScheduler(0));
+    }
+
+    @Test
+    public void testSkipsMissedTicks() throws InterruptedException {
+        // 20 ms ticks
+        TickScheduler ticks = new TickScheduler(50);
+        ticks.awaitNextTick();
+        // about ten ticks go by
+        Thread.sleep(200);
+        ticks.awaitNextTick();
+
+        // the missed ticks are skipped, so the next one is a whole tick away instead of
+        // already overdue
+        long start = System.nanoTime();
+        ticks.awaitNextTick();
+        assertThat(System.nanoTime() - start).isAtLeast(15_000_000L);
+    }
+
+    @Test
+    public void testRecordsLatencyFromPreviousTick() throws InterruptedException {
+        // 10 ms ticks
+        TickScheduler ticks = new TickScheduler(100);
+        assertThat(ticks.averageInputLatencyMillis()).isEqualTo(0.0);
+        ticks.awaitNextTick();
+        // the first tick started at or before this
+        long firstTick = System.nanoTime();
+        ticks.awaitNextTick();
+        Thread.sleep(30);
+        long shown = System.nanoTime();
+        ticks.recordInputShown();
+
+        // measured from the tick before, so it covers the whole second tick too
+        assertThat(ticks.maxInputLatencyMillis()).isAtLeast((shown - firstTick) / 1e6);
+        assertThat(ticks.averageInputLatencyMillis()).isEqualTo(ticks.maxInputLatencyMillis());
+    }
+}
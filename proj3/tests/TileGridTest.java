@@ -0,0 +1,71 @@
+import core.AutograderBuddy;
+import org.junit.jupiter.api.Test;
+import tileengine.TETile;
+import tileengine.TileGrid;
+import tileengine.Tileset;
+
+import static com.google.common.truth.Truth.*;
+
+public class TileGridTest {
+    @Test
+    public void testSetAndGet() {
+        TileGrid grid = new TileGrid(5, 3, Tileset.NOTHING);
+        grid.set(4, 2, Tileset.WALL);
+        grid.set(0, 1, Tileset.FLOOR);
+
+        assertThat(grid.get(4, 2)).isSameInstanceAs(Tileset.WALL);
+        assertThat(grid.getId(0, 1)).isEqualTo(Tileset.FLOOR.id());
+        assertThat(grid.get(2, 2)).isSameInstanceAs(Tileset.NOTHING);
+    }
+
+    @Test
+    public void testArrayViewMatchesGrid() {
+        TileGrid grid = new TileGrid(4, 6, Tileset.GRASS);
+        grid.set(3, 5, Tileset.TREE);
+        TETile[][] tiles = grid.toArray();
+
+        assertThat(tiles.length).isEqualTo(4);
+        assertThat(tiles[0].length).isEqualTo(6);
+        assertThat(tiles[3][5]).isSameInstanceAs(Tileset.TREE);
+        assertThat(tiles[1][1]).isSameInstanceAs(Tileset.GRASS);
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        TileGrid grid = new TileGrid(2, 2, Tileset.FLOOR);
+        TileGrid copy = grid.copy();
+        copy.set(0, 0, Tileset.AVATAR);
+
+        assertThat(grid.get(0, 0)).isSameInstanceAs(Tileset.FLOOR);
+        assertThat(copy.get(0, 0)).isSameInstanceAs(Tileset.AVATAR);
+    }
+
+    @Test
+    public void testCopyOnWriteIsIndependent() {
+        TileGrid grid = new TileGrid(2, 2, Tileset.FLOOR);
+        TileGrid first = grid.copyOnWrite();
+        TileGrid second = grid.copyOnWrite();
+        first.set(0, 0, Tileset.AVATAR);
+        grid.set(1, 1, Tileset.WALL);
+
+        assertThat(grid.get(0, 0)).isSameInstanceAs(Tileset.FLOOR);
+        assertThat(first.get(0, 0)).isSameInstanceAs(Tileset.AVATAR);
+        assertThat(first.get(1, 1)).isSameInstanceAs(Tileset.FLOOR);
+        assertThat(second.get(0, 0)).isSameInstanceAs(Tileset.FLOOR);
+        assertThat(second.get(1, 1)).isSameInstanceAs(Tileset.FLOOR);
+    }
+
+    @Test
+    public void testWorldHasOneAvatar() {
+        TETile[][] tiles = AutograderBuddy.getWorldFromInput("n42swasd");
+        int avatars = 0;
+        for (TETile[] column : tiles) {
+            for (TETile t : column) {
+                if (t == Tileset.AVATAR) {
+                    avatars++;
+                }
+            }
+        }
+        assertThat(avatars).isEqualTo(1);
+    }
+}
@@ -0,0 +1,110 @@
+import core.World;
+import core.WorldCache;
+import org.junit.jupiter.api.Test;
+import tileengine.TETile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.google.common.truth.Truth.*;
+
+public class WorldCacheTest {
+    @Test
+    public void testSessionsAreIndependent() {
+        WorldCache cache = new WorldCache(4);
+        World first = cache.get(42, 30, 70);
+        first.moveAvatar('w');
+        first.moveAvatar('d');
+        World second = cache.get(42, 30, 70);
+
+        String fresh = TETile.toString(new World(42, 30, 70).getTileSet());
+        assertThat(TETile.toString(second.getTileSet())).isEqualTo(fresh);
+        assertThat(second.getSave()).isEqualTo("n42s");
+        assertThat(cache.hits()).isEqualTo(1);
+        assertThat(cache.misses()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCachedReplayMatchesGeneratedReplay() {
+        WorldCache cache = new WorldCache(4);
+        for (int i = 0; i < 3; i++) {
+            World cached = cache.get(7, 30, 70);
+            World generated = new World(7, 30, 70);
+            for (char key : "wwdddsaasdwd".toCharArray()) {
+                cached.moveAvatar(key);
+                generated.moveAvatar(key);
+            }
+            assertThat(TETile.toString(cached.getTileSet()))
+                    .isEqualTo(TETile.toString(generated.getTileSet()));
+        }
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        WorldCache cache = new WorldCache(2);
+        cache.get(1, 30, 70);
+        cache.get(2, 30, 70);
+        cache.get(1, 30, 70);
+        cache.get(3, 30, 70); // evicts 2
+        cache.get(1, 30, 70);
+        cache.get(2, 30, 70);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.hits()).isEqualTo(2);
+        assertThat(cache.misses()).isEqualTo(4);
+        assertThat(cache.evictions()).isEqualTo(2);
+    }
+
+    @Test
+    public void testConcurrentMissesGenerateOnce() throws Exception {
+        WorldCache cache = new WorldCache(4);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                results.add(executor.submit(() -> {
+                    World world = cache.get(5, 30, 70);
+                    world.moveAvatar('d');
+                    return TETile.toString(world.getTileSet());
+                }));
+            }
+            String expected = results.get(0).get();
+            for (Future<String> f : results) {
+                assertThat(f.get()).isEqualTo(expected);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(cache.misses()).isEqualTo(1);
+        assertThat(cache.hits()).isEqualTo(31);
+    }
+
+    @Test
+    public void testFailedGenerationRethrowsCause() throws Exception {
+        WorldCache cache = new WorldCache(4);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Throwable>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                // too small to hold a room, so generation fails
+                results.add(executor.submit(() -> {
+                    try {
+                        cache.get(1, 3, 3);
+                        return null;
+                    } catch (RuntimeException e) {
+                        return e;
+                    }
+                }));
+            }
+            for (Future<Throwable> f : results) {
+                assertThat(f.get()).isInstanceOf(IllegalArgumentException.class);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(cache.size()).isEqualTo(0);
+    }
+}